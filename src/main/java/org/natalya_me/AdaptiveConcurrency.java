@@ -0,0 +1,176 @@
+package org.natalya_me;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of concurrent I/O operations of a stage and adjusts the limit online, AIMD-style, from the measured
+ * throughput and latency. Each operation is wrapped into {@link #acquire()} and {@link #release(long, long)}.
+ * <p>
+ * Operations are measured in windows of at least twice as many operations as the current limit. After each window:
+ * <ul>
+ * <li>if the mean latency exceeds twice the lowest mean latency seen, or the throughput fell below 80% of
+ *     the previous window, the storage is considered congested and the limit is halved (multiplicative decrease);</li>
+ * <li>otherwise the limit grows by one (additive increase); before the first congestion it doubles instead
+ *     (slow start), so that a fast device reaches a high limit in a few windows.</li>
+ * </ul>
+ * The limit always stays within the bounds given to the constructor. A controller with equal bounds is a plain
+ * semaphore.
+ * <p>
+ * The class is thread safe.
+ */
+public class AdaptiveConcurrency {
+
+    // Minimum number of operations in a measurement window
+    private static final int MIN_WINDOW = 16;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double THROUGHPUT_TOLERANCE = 0.8;
+
+    private final int minimum;
+    private final int maximum;
+    private final int minWindow;
+    private final LongSupplier clock;
+
+    private int limit;
+    private int running;
+    private boolean slowStart = true;
+    private long windowStart = -1;
+    private int windowOperations;
+    private long windowUnits;
+    private long windowLatency;
+    private double previousThroughput = -1;
+    private double lowestLatency = Double.MAX_VALUE;
+    private double throughput;
+    private long operations;
+    private long weightedLimit;
+
+    /**
+     * Constructor. The limit starts at the minimum.
+     *
+     * @param minimum lower bound of the limit
+     * @param maximum upper bound of the limit
+     */
+    public AdaptiveConcurrency(int minimum, int maximum) {
+        this(minimum, maximum, MIN_WINDOW, System::nanoTime);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param minimum   lower bound of the limit
+     * @param maximum   upper bound of the limit
+     * @param minWindow minimum number of operations in a measurement window
+     * @param clock     source of time in nanoseconds
+     */
+    AdaptiveConcurrency(int minimum, int maximum, int minWindow, LongSupplier clock) {
+        if (minimum < 1 || maximum < minimum) {
+            throw new IllegalArgumentException(String.format("Concurrency bounds %d..%d are incorrect, expected 1 <= minimum <= maximum.", minimum, maximum));
+        }
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.minWindow = minWindow;
+        this.clock = clock;
+        this.limit = minimum;
+    }
+
+    /**
+     * Waits until the number of running operations is below the limit and starts an operation.
+     *
+     * @return start time of the operation in nanoseconds, to be passed to {@link #release(long, long)}
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized long acquire() throws InterruptedException {
+        while (running >= limit) {
+            wait();
+        }
+        running++;
+        long now = clock.getAsLong();
+        if (windowStart < 0) {
+            windowStart = now;
+        }
+        return now;
+    }
+
+    /**
+     * Completes an operation started by {@link #acquire()}.
+     *
+     * @param started start time returned by {@link #acquire()}
+     * @param units   amount of work done by the operation, e.g. files or bytes, throughput is measured in them
+     */
+    public synchronized void release(long started, long units) {
+        long now = clock.getAsLong();
+        running--;
+        operations++;
+        weightedLimit += limit;
+        windowOperations++;
+        windowUnits += units;
+        windowLatency += now - started;
+        if (windowOperations >= Math.max(minWindow, 2 * limit)) {
+            adjust(now);
+        }
+        notifyAll();
+    }
+
+    private void adjust(long now) {
+        double seconds = Math.max(now - windowStart, 1) / 1e9;
+        double latency = (double) windowLatency / windowOperations;
+        throughput = windowUnits / seconds;
+        lowestLatency = Math.min(lowestLatency, latency);
+        boolean congested = latency > LATENCY_TOLERANCE * lowestLatency
+                || previousThroughput > 0 && throughput < THROUGHPUT_TOLERANCE * previousThroughput;
+        if (congested) {
+            slowStart = false;
+            limit = Math.max(minimum, limit / 2);
+            // The next window runs at another limit, so it is not compared with this one
+            previousThroughput = -1;
+        } else {
+            limit = Math.min(maximum, slowStart ? limit * 2 : limit + 1);
+            previousThroughput = throughput;
+        }
+        windowStart = now;
+        windowOperations = 0;
+        windowUnits = 0;
+        windowLatency = 0;
+    }
+
+    /**
+     * @return current limit of concurrent operations
+     */
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return lower bound of the limit
+     */
+    public int getMinimum() {
+        return minimum;
+    }
+
+    /**
+     * @return upper bound of the limit
+     */
+    public int getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * @return limit averaged over all completed operations, or the current limit if there are none
+     */
+    public synchronized double getAverageLimit() {
+        return operations == 0 ? limit : (double) weightedLimit / operations;
+    }
+
+    /**
+     * @return throughput of the last measurement window in units per second, 0 if no window is complete
+     */
+    public synchronized double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * @return number of completed operations
+     */
+    public synchronized long getOperations() {
+        return operations;
+    }
+}
@@ -0,0 +1,119 @@
+package org.natalya_me;
+
+import org.natalya_me.algorithm.GraphAnalytics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class for writing metrics of a dependency graph as a JSON document.
+ * Arcs of the graph are expected to go from a file to the files requiring it (like in {@link Main}), so that
+ * fan-in of a file is the number of files requiring it and fan-out is the number of files it requires.
+ * <p>
+ * Example:
+ * <pre>
+ * {
+ *   "files": 5,
+ *   "requirements": 4,
+ *   "acyclic": true,
+ *   "components": 2,
+ *   "depth": 4,
+ *   "criticalChain": ["/root/file3.txt", "/root/file2.txt", "/root/file1.txt", "/root/file4.txt"],
+ *   "levelWidths": [2, 1, 1, 1],
+ *   "topFanIn": [{"file": "/root/file3.txt", "count": 2}],
+ *   "topFanOut": [{"file": "/root/file1.txt", "count": 2}]
+ * }
+ * </pre>
+ * The critical chain starts with a file that doesn't require anything and ends with a file nothing requires.
+ */
+public class AnalyticsReport {
+
+    private AnalyticsReport() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", AnalyticsReport.class.getName()));
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param analytics metrics of a dependency graph
+     * @param file      report file path, an existing file is overwritten
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(GraphAnalytics analytics, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(analytics, out);
+        }
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param analytics metrics of a dependency graph
+     * @param out       destination
+     * @throws IOException if writing fails
+     */
+    public static void write(GraphAnalytics analytics, Appendable out) throws IOException {
+        out.append("{\n");
+        out.append("  \"files\": ").append(String.valueOf(analytics.getNodeCount())).append(",\n");
+        out.append("  \"requirements\": ").append(String.valueOf(analytics.getArcCount())).append(",\n");
+        out.append("  \"acyclic\": ").append(String.valueOf(analytics.isAcyclic())).append(",\n");
+        out.append("  \"components\": ").append(String.valueOf(analytics.getComponentCount())).append(",\n");
+        out.append("  \"depth\": ").append(String.valueOf(analytics.getLongestPath().size())).append(",\n");
+        out.append("  \"criticalChain\": [");
+        List<String> chain = analytics.getLongestPath();
+        for (int i = 0; i < chain.size(); i++) {
+            out.append(i == 0 ? "" : ", ");
+            appendString(out, chain.get(i));
+        }
+        out.append("],\n");
+        out.append("  \"levelWidths\": [");
+        List<Integer> widths = analytics.getLevelWidths();
+        for (int i = 0; i < widths.size(); i++) {
+            out.append(i == 0 ? "" : ", ").append(String.valueOf(widths.get(i)));
+        }
+        out.append("],\n");
+        // Arcs go from required files, so fan-in of a file is its number of outgoing arcs
+        out.append("  \"topFanIn\": ");
+        appendDegrees(out, analytics.getTopOutDegree());
+        out.append(",\n");
+        out.append("  \"topFanOut\": ");
+        appendDegrees(out, analytics.getTopInDegree());
+        out.append("\n}\n");
+    }
+
+    private static void appendDegrees(Appendable out, List<Map.Entry<String, Integer>> degrees) throws IOException {
+        out.append("[");
+        for (int i = 0; i < degrees.size(); i++) {
+            out.append(i == 0 ? "" : ", ").append("{\"file\": ");
+            appendString(out, degrees.get(i).getKey());
+            out.append(", \"count\": ").append(String.valueOf(degrees.get(i).getValue())).append("}");
+        }
+        out.append("]");
+    }
+
+    private static void appendString(Appendable out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
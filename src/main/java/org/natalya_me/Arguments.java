@@ -0,0 +1,77 @@
+package org.natalya_me;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line arguments of the application: positional values and named options.
+ * An option is written as "--name" and is followed by a fixed number of values defined for it (flags don't have values).
+ * Options can be repeated, values of all occurrences are kept in the order of appearance.
+ */
+class Arguments {
+
+    private final List<String> positional = new ArrayList<>();
+    private final Map<String, List<String>> options = new HashMap<>();
+
+    /**
+     * Parses command line arguments.
+     *
+     * @param args    command line arguments
+     * @param arities number of values for each supported option name (without leading dashes)
+     *
+     * @throws IllegalArgumentException if an option is not supported or its values are missing
+     */
+    Arguments(String[] args, Map<String, Integer> arities) {
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                positional.add(args[i]);
+                continue;
+            }
+            String name = args[i].substring(2);
+            Integer arity = arities.get(name);
+            if (arity == null) {
+                throw new IllegalArgumentException(String.format("Unknown option %s.", args[i]));
+            }
+            if (i + arity >= args.length) {
+                throw new IllegalArgumentException(String.format("Option %s requires %d value(s).", args[i], arity));
+            }
+            List<String> values = options.computeIfAbsent(name, (k) -> new ArrayList<>());
+            for (int k = 0; k < arity; k++) {
+                values.add(args[++i]);
+            }
+        }
+    }
+
+    /**
+     * @param index position among non-option arguments
+     * @return      argument value, or null if there is no such argument
+     */
+    String getPositional(int index) {
+        return index < positional.size() ? positional.get(index) : null;
+    }
+
+    /**
+     * Checks if the option or flag is present.
+     */
+    boolean hasOption(String name) {
+        return options.containsKey(name);
+    }
+
+    /**
+     * @return the last value of the option, or null if the option is absent
+     */
+    String getOption(String name) {
+        List<String> values = options.get(name);
+        return values == null || values.isEmpty() ? null : values.get(values.size() - 1);
+    }
+
+    /**
+     * @return all values of the option in the order of appearance, or an empty list if the option is absent
+     */
+    List<String> getOptionValues(String name) {
+        return options.getOrDefault(name, Collections.emptyList());
+    }
+}
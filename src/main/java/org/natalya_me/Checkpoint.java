@@ -0,0 +1,147 @@
+package org.natalya_me;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Progress of a concatenation saved to a small file, so that an interrupted concatenation can be resumed.
+ * A checkpoint records the hash of the source list, the number of sources completely written and the output size
+ * at that moment. The hash covers paths, sizes and modification times of the sources in their order,
+ * so a checkpoint doesn't match if the order or any source has changed.
+ * <p>
+ * Format: magic and version ints, hash length and bytes, number of written sources (int) and output offset (long).
+ */
+public class Checkpoint {
+
+    private static final int MAGIC = 0x4653434B;
+    private static final int VERSION = 1;
+
+    private final byte[] orderHash;
+    private final int completed;
+    private final long offset;
+
+    /**
+     * @param orderHash hash of the sources, see {@link #orderHash(List)}
+     * @param completed number of sources completely written
+     * @param offset    output size after the completed sources
+     */
+    public Checkpoint(byte[] orderHash, int completed, long offset) {
+        this.orderHash = orderHash.clone();
+        this.completed = completed;
+        this.offset = offset;
+    }
+
+    /**
+     * Computes the hash of the sources: SHA-256 of their paths, sizes and modification times in the given order.
+     *
+     * @param files source file paths
+     * @return hash bytes
+     */
+    public static byte[] orderHash(List<String> files) {
+        MessageDigest digest = sha256();
+        byte[] number = new byte[8];
+        for (String path: files) {
+            File file = new File(path);
+            digest.update(path.getBytes(StandardCharsets.UTF_8));
+            // Zero byte separates paths, so that different lists cannot produce the same byte sequence
+            digest.update((byte) 0);
+            digest.update(toBytes(file.length(), number));
+            digest.update(toBytes(file.lastModified(), number));
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Loads a checkpoint.
+     *
+     * @param file checkpoint file path
+     * @return the checkpoint, or null if there is no such file
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public static Checkpoint load(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a checkpoint: wrong magic number.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported checkpoint version %d.", version));
+            }
+            byte[] hash = new byte[in.readUnsignedShort()];
+            in.readFully(hash);
+            return new Checkpoint(hash, in.readInt(), in.readLong());
+        }
+    }
+
+    /**
+     * Saves the checkpoint. The file is replaced atomically, so a crash never leaves a partially written checkpoint.
+     *
+     * @param file checkpoint file path
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeShort(orderHash.length);
+            out.write(orderHash);
+            out.writeInt(completed);
+            out.writeLong(offset);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Checks if the checkpoint was made for the same sources.
+     *
+     * @param orderHash hash of the current sources, see {@link #orderHash(List)}
+     */
+    public boolean matches(byte[] orderHash) {
+        return Arrays.equals(this.orderHash, orderHash);
+    }
+
+    /**
+     * @return number of sources completely written
+     */
+    public int getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return output size after the completed sources
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] toBytes(long value, byte[] bytes) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+        return bytes;
+    }
+}
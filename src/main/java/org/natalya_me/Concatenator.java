@@ -0,0 +1,252 @@
+package org.natalya_me;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Utility class for writing sorted files one after another into an output stream.
+ * Compressed files (see {@link SourceFiles}) are written decompressed. Their decompressed size is not known
+ * before they are read, so they are never read ahead into memory, but always copied as a stream when their turn comes.
+ */
+public class Concatenator {
+
+    private Concatenator() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", Concatenator.class.getName()));
+    }
+
+    /**
+     * Listener notified after each source is written.
+     */
+    public interface Progress {
+
+        /**
+         * @param index index of the source that has been completely written to the stream
+         */
+        void written(int index) throws IOException;
+    }
+
+    /**
+     * Copies the files to the stream in the given order.
+     *
+     * @param files file paths
+     * @param out   destination, it is not closed
+     * @throws IOException if a file cannot be read or the stream cannot be written
+     */
+    public static void concatenate(List<String> files, OutputStream out) throws IOException {
+        concatenate(files, 0, out, null);
+    }
+
+    /**
+     * Copies the files to the stream in the given order starting with the given file.
+     *
+     * @param files    file paths
+     * @param start    index of the first file to copy
+     * @param out      destination, it is not closed
+     * @param progress listener notified after each file, may be null
+     * @throws IOException if a file cannot be read or the stream cannot be written
+     */
+    public static void concatenate(List<String> files, int start, OutputStream out, Progress progress) throws IOException {
+        for (int i = start; i < files.size(); i++) {
+            SourceFiles.copy(Paths.get(files.get(i)), out);
+            if (progress != null) {
+                progress.written(i);
+            }
+        }
+    }
+
+    /**
+     * Copies the files to the stream in the given order, but reads them in the order of their location on the disk.
+     * Files are taken in windows of at most {@code windowFiles} files and {@code windowBytes} bytes. Files of a window
+     * are read into memory grouped by directory and in inode order (see {@link ReadScheduler#sortByDirectory}),
+     * then written in the given order. A file larger than a window and a compressed file are copied directly.
+     *
+     * @param files       file paths
+     * @param out         destination, it is not closed
+     * @param windowFiles maximum number of files read ahead
+     * @param windowBytes maximum number of bytes read ahead
+     * @return file paths in the order they were read
+     * @throws IOException if a file cannot be read or the stream cannot be written
+     */
+    public static List<Path> concatenateScheduled(List<String> files, OutputStream out, int windowFiles, long windowBytes) throws IOException {
+        return concatenateScheduled(files, 0, out, windowFiles, windowBytes, null);
+    }
+
+    /**
+     * The same as {@link #concatenateScheduled(List, OutputStream, int, long)}, but starts with the given file
+     * and notifies the listener after each file is written.
+     *
+     * @param files       file paths
+     * @param start       index of the first file to copy
+     * @param out         destination, it is not closed
+     * @param windowFiles maximum number of files read ahead
+     * @param windowBytes maximum number of bytes read ahead
+     * @param progress    listener notified after each file, may be null
+     * @return file paths in the order they were read
+     * @throws IOException if a file cannot be read or the stream cannot be written
+     */
+    public static List<Path> concatenateScheduled(List<String> files, int start, OutputStream out, int windowFiles, long windowBytes,
+                                                  Progress progress) throws IOException {
+        if (windowFiles < 1 || windowBytes < 1) {
+            throw new IllegalArgumentException("Window size must be positive.");
+        }
+        List<Path> readOrder = new ArrayList<>(files.size());
+        while (start < files.size()) {
+            // Extend the window while it fits into the limits, the first file is always taken
+            List<Path> window = new ArrayList<>();
+            long bytes = 0;
+            int end = start;
+            while (end < files.size() && window.size() < windowFiles) {
+                Path path = Paths.get(files.get(end));
+                boolean compressed = SourceFiles.isCompressed(path);
+                long size = compressed ? 0 : Files.size(path);
+                // A compressed file is copied directly in a window of its own
+                if (!window.isEmpty() && (compressed || bytes + size > windowBytes)) break;
+                window.add(path);
+                bytes += size;
+                end++;
+                if (compressed) break;
+            }
+            if (window.size() == 1) {
+                SourceFiles.copy(window.get(0), out);
+                readOrder.add(window.get(0));
+                if (progress != null) {
+                    progress.written(start);
+                }
+            } else {
+                List<Integer> indices = new ArrayList<>(window.size());
+                for (int i = 0; i < window.size(); i++) {
+                    indices.add(i);
+                }
+                byte[][] contents = new byte[window.size()][];
+                for (int i: ReadScheduler.sortByDirectory(indices, window::get)) {
+                    contents[i] = SourceFiles.readAllBytes(window.get(i));
+                    readOrder.add(window.get(i));
+                }
+                for (int i = 0; i < contents.length; i++) {
+                    out.write(contents[i]);
+                    contents[i] = null;
+                    if (progress != null) {
+                        progress.written(start + i);
+                    }
+                }
+            }
+            start = end;
+        }
+        return readOrder;
+    }
+
+    /**
+     * Copies the files to the stream in the given order, reading up to {@code windowFiles} files and {@code windowBytes}
+     * bytes ahead with tasks of the executor. Unlike {@link #concatenateScheduled}, files are read concurrently,
+     * which suits file systems with a high latency of each request, e.g. network ones.
+     * A file larger than the window and a compressed file are copied directly when their turn comes.
+     *
+     * @param files       file paths
+     * @param start       index of the first file to copy
+     * @param out         destination, it is not closed
+     * @param windowFiles maximum number of files read ahead
+     * @param windowBytes maximum number of bytes read ahead
+     * @param executor    executor reading the files, see {@link IoExecutors}
+     * @param progress    listener notified after each file, may be null
+     * @throws IOException if a file cannot be read or the stream cannot be written
+     */
+    public static void concatenateConcurrent(List<String> files, int start, OutputStream out, int windowFiles, long windowBytes,
+                                             ExecutorService executor, Progress progress) throws IOException {
+        if (windowFiles < 1 || windowBytes < 1) {
+            throw new IllegalArgumentException("Window size must be positive.");
+        }
+        concatenateConcurrent(files, start, out, windowFiles, windowBytes, executor, new AdaptiveConcurrency(windowFiles, windowFiles), progress);
+    }
+
+    /**
+     * The same as {@link #concatenateConcurrent(List, int, OutputStream, int, long, ExecutorService, Progress)}, but
+     * the number of files read at the same time is limited by the controller, which adapts it to the measured
+     * throughput and latency of reading. The executor should run at least as many tasks as the upper bound of the controller.
+     *
+     * @param files       file paths
+     * @param start       index of the first file to copy
+     * @param out         destination, it is not closed
+     * @param windowFiles maximum number of files read ahead
+     * @param windowBytes maximum number of bytes read ahead
+     * @param executor    executor reading the files, see {@link IoExecutors}
+     * @param concurrency controller of the number of files read at the same time, throughput is measured in bytes
+     * @param progress    listener notified after each file, may be null
+     * @throws IOException if a file cannot be read or the stream cannot be written
+     */
+    public static void concatenateConcurrent(List<String> files, int start, OutputStream out, int windowFiles, long windowBytes,
+                                             ExecutorService executor, AdaptiveConcurrency concurrency, Progress progress) throws IOException {
+        if (windowFiles < 1 || windowBytes < 1) {
+            throw new IllegalArgumentException("Window size must be positive.");
+        }
+        if (concurrency == null) {
+            throw new IllegalArgumentException("concurrency cannot be null");
+        }
+        // Contents being read, in the order of files; a null content means a file copied directly
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        Deque<Long> pendingSizes = new ArrayDeque<>();
+        long pendingBytes = 0;
+        int next = start;
+        try {
+            for (int i = start; i < files.size(); i++) {
+                while (next < files.size() && pending.size() < windowFiles) {
+                    Path path = Paths.get(files.get(next));
+                    boolean compressed = SourceFiles.isCompressed(path);
+                    long size = compressed ? 0 : Files.size(path);
+                    if (compressed || size > windowBytes) {
+                        pending.add(CompletableFuture.completedFuture(null));
+                        pendingSizes.add(0L);
+                    } else if (pendingBytes + size <= windowBytes) {
+                        pending.add(executor.submit(() -> {
+                            long started = concurrency.acquire();
+                            byte[] content = null;
+                            try {
+                                content = SourceFiles.readAllBytes(path);
+                                return content;
+                            } finally {
+                                concurrency.release(started, content == null ? 0 : content.length);
+                            }
+                        }));
+                        pendingSizes.add(size);
+                        pendingBytes += size;
+                    } else {
+                        break;
+                    }
+                    next++;
+                }
+                byte[] content = pending.poll().get();
+                pendingBytes -= pendingSizes.poll();
+                if (content == null) {
+                    SourceFiles.copy(Paths.get(files.get(i)), out);
+                } else {
+                    out.write(content);
+                }
+                if (progress != null) {
+                    progress.written(i);
+                }
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Concatenation was interrupted.", ex);
+        } finally {
+            for (Future<byte[]> content: pending) {
+                content.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.natalya_me;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Utility class for finding files with byte-identical contents, e.g. vendored copies of the same file.
+ * Files are grouped by size first, and only files sharing a size with another file are hashed (SHA-256),
+ * concurrently by tasks of the given executor. Files of a group with equal hashes are duplicates of the one
+ * with the smallest path, which is called the original.
+ */
+class ContentDuplicates {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private ContentDuplicates() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", ContentDuplicates.class.getName()));
+    }
+
+    /**
+     * Finds duplicates among the files. A file that cannot be read is not a duplicate of anything.
+     *
+     * @param files    files to compare
+     * @param executor executor hashing the files, see {@link IoExecutors}
+     * @return path of the original for the absolute path of each duplicate; originals are not included
+     * @throws InterruptedException if the thread is interrupted while waiting for hashes
+     */
+    static Map<String, String> find(Collection<File> files, ExecutorService executor) throws InterruptedException {
+        Map<Long, List<File>> bySize = new HashMap<>();
+        for (File file: files) {
+            bySize.computeIfAbsent(file.length(), k -> new ArrayList<>()).add(file);
+        }
+        List<File> candidates = new ArrayList<>();
+        List<Future<byte[]>> hashes = new ArrayList<>();
+        for (List<File> group: bySize.values()) {
+            if (group.size() < 2) continue;
+            for (File file: group) {
+                candidates.add(file);
+                hashes.add(executor.submit(() -> hash(file)));
+            }
+        }
+        // Files are grouped by size and hash, the hash is hex-encoded into the key
+        Map<String, String> originals = new HashMap<>();
+        Map<String, List<String>> groups = new HashMap<>();
+        try {
+            for (int i = 0; i < candidates.size(); i++) {
+                byte[] hash = hashes.get(i).get();
+                if (hash == null) continue;
+                File file = candidates.get(i);
+                String key = file.length() + ":" + toHex(hash);
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(file.getAbsolutePath());
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+        for (List<String> group: groups.values()) {
+            if (group.size() < 2) continue;
+            String original = group.stream().min(String::compareTo).get();
+            for (String path: group) {
+                if (!path.equals(original)) {
+                    originals.put(path, original);
+                }
+            }
+        }
+        return originals;
+    }
+
+    /**
+     * @return SHA-256 of the file contents, or null if the file cannot be read
+     */
+    private static byte[] hash(File file) {
+        MessageDigest digest = Checkpoint.sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                digest.update(buffer, 0, n);
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+        return digest.digest();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b: bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
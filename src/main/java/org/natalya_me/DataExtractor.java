@@ -1,8 +1,18 @@
 package org.natalya_me;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -10,6 +20,9 @@ import java.util.Scanner;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipException;
 
 /**
  *  This class extracts required data from a text file according to the defined regex pattern and custom extract function.
@@ -19,8 +32,15 @@ import java.util.regex.Pattern;
  */
 public class DataExtractor {
 
+    // Default size of a part of a large file scanned by one thread
+    private static final int CHUNK_SIZE = 8 << 20;
+
+    // Line separators recognized by Scanner.nextLine()
+    private static final Pattern LINE_SEPARATOR = Pattern.compile("\r\n|[\n\r\u2028\u2029\u0085]");
+
     private final Pattern pattern;
     private final Function<Matcher, List<String>> extract;
+    private final int chunkSize;
 
     /**
      * Constructor.
@@ -29,12 +49,26 @@ public class DataExtractor {
      * @param extract  function, extracting required data from a Matcher instance
      */
     public DataExtractor(String reg, Function<Matcher, List<String>> extract) {
+        this(reg, extract, CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param reg       regex pattern
+     * @param extract   function, extracting required data from a Matcher instance
+     * @param chunkSize size of a part of a large file scanned by one thread, see {@link #findAllChunked(File)}
+     */
+    DataExtractor(String reg, Function<Matcher, List<String>> extract, int chunkSize) {
         pattern = Pattern.compile(reg);
         this.extract = extract;
+        this.chunkSize = chunkSize;
     }
 
     /**
      * Finds all matches and extracts required data within the file.
+     * A compressed file (see {@link SourceFiles}) is decompressed while it is scanned; a compressed file that cannot
+     * be decompressed is skipped like an unreadable one, it has no matches.
      *
      * @param file file path
      * @return     list of all extracted strings (duplicates are allowed),
@@ -45,7 +79,9 @@ public class DataExtractor {
             throw new IllegalArgumentException("File path is incorrect: " + Optional.ofNullable(file).map(File::getPath).orElse(null));
         }
 
-        try (Scanner scanner = new Scanner(file)) {
+        // The same decoding as of Scanner(File), over the decompressed contents of a compressed file
+        try (Scanner scanner = new Scanner(Channels.newReader(Channels.newChannel(SourceFiles.openInput(file.toPath())),
+                Charset.defaultCharset().newDecoder(), -1))) {
             List<String> result = Collections.emptyList();
             while (scanner.hasNextLine()) {
                 List<String> extracted = extract.apply(pattern.matcher(scanner.nextLine()));
@@ -56,9 +92,128 @@ public class DataExtractor {
                     result.addAll(extracted);
                 }
             }
-            return result;
-        } catch (FileNotFoundException ex) {
+            // Scanner stops at a read error, the matches found before corrupt compressed data are not reliable
+            return scanner.ioException() instanceof ZipException ? Collections.emptyList() : result;
+        } catch (ZipException ex) {
+            return Collections.emptyList();
+        } catch (IOException ex) {
             throw new IllegalArgumentException("Not correct file path was provided: " + file.getPath());
         }
     }
+
+    /**
+     * The same as {@link #findAll(File)}, but a large file is split at line boundaries into chunks of about
+     * 8 MB, which are memory-mapped and scanned concurrently. Matches are returned in line order,
+     * so the result is identical to the one of {@link #findAll(File)}.
+     * <p>
+     * Chunks are split at '\n' bytes, so only charsets where this byte always means a line feed are scanned in chunks
+     * (UTF-8, US-ASCII and ISO-8859-1). Small files, compressed files, files in other default charsets and files
+     * that cannot be decoded are scanned by {@link #findAll(File)}.
+     *
+     * @param file file path
+     * @return     list of all extracted strings (duplicates are allowed),
+     *             or an empty list, if no matches have been found
+     */
+    public List<String> findAllChunked(File file) {
+        Charset charset = Charset.defaultCharset();
+        if (file == null || !file.isFile() || file.length() < 2L * chunkSize
+                || !Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1).contains(charset)) {
+            return findAll(file);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (SourceFiles.isCompressed(file.toPath())) {
+                return findAll(file);
+            }
+            long[] bounds = splitAtLines(channel);
+            List<List<String>> chunks = IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            return findInChunk(channel, bounds[i], bounds[i + 1], charset);
+                        } catch (IOException ex) {
+                            // Scanner stops at undecodable input, so the whole file is left to it
+                            return null;
+                        }
+                    })
+                    .collect(Collectors.toList());
+            if (chunks.contains(null)) {
+                return findAll(file);
+            }
+            List<String> result = Collections.emptyList();
+            for (List<String> extracted: chunks) {
+                if (!extracted.isEmpty()) {
+                    if (result.isEmpty()) {
+                        result = new ArrayList<>();
+                    }
+                    result.addAll(extracted);
+                }
+            }
+            return result;
+        } catch (IOException ex) {
+            return findAll(file);
+        }
+    }
+
+    /**
+     * @return offsets of chunk boundaries, starting with 0 and ending with the file size;
+     *         each inner boundary follows a '\n' byte
+     */
+    private long[] splitAtLines(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+        long position = chunkSize;
+        while (position < size) {
+            // Find the end of the line containing the nominal boundary
+            long lineEnd = -1;
+            for (long p = position; lineEnd < 0 && p < size; p += buffer.limit()) {
+                ((Buffer) buffer).clear();
+                if (channel.read(buffer, p) <= 0) break;
+                ((Buffer) buffer).flip();
+                for (int i = 0; i < buffer.limit(); i++) {
+                    if (buffer.get(i) == '\n') {
+                        lineEnd = p + i + 1;
+                        break;
+                    }
+                }
+            }
+            if (lineEnd < 0 || lineEnd >= size) break;
+            bounds.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private List<String> findInChunk(FileChannel channel, long start, long end, Charset charset) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("A line is too long to be mapped.");
+        }
+        CharBuffer text;
+        try {
+            text = charset.newDecoder().decode(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        } catch (CharacterCodingException ex) {
+            throw new IOException(ex);
+        }
+        List<String> result = Collections.emptyList();
+        Matcher separator = LINE_SEPARATOR.matcher(text);
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.length();
+            int next = lineEnd;
+            if (separator.find()) {
+                lineEnd = separator.start();
+                next = separator.end();
+            }
+            List<String> extracted = extract.apply(pattern.matcher(text.subSequence(lineStart, lineEnd).toString()));
+            if (!extracted.isEmpty()) {
+                if (result.isEmpty()) {
+                    result = new ArrayList<>();
+                }
+                result.addAll(extracted);
+            }
+            lineStart = next;
+        }
+        return result;
+    }
 }
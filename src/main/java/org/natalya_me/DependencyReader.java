@@ -1,13 +1,29 @@
 package org.natalya_me;
 
+import org.natalya_me.algorithm.ConcurrentGraphBuilder;
+import org.natalya_me.algorithm.DirectedGraph;
+import org.natalya_me.algorithm.ExternalGraphBuilder;
+
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 
@@ -21,6 +37,31 @@ public class DependencyReader {
     // Object for extracting requirements from files
     private static final DataExtractor DATA_EXTRACTOR = new DataExtractor("require *' *(.*?) *'", DependencyReader::extract);
 
+    /**
+     * Policy for symbolic links met in a traversal. Either way, each physical file and directory is visited once,
+     * so hard links and links to already visited files don't produce duplicates and link loops are not followed.
+     */
+    public enum LinkPolicy {
+        /** links to files and directories are followed */
+        FOLLOW,
+        /** links are ignored, only files reachable without links are read */
+        SKIP;
+
+        /**
+         * @param name policy name: follow or skip
+         * @return link policy
+         * @throws IllegalArgumentException if the name is unknown
+         */
+        public static LinkPolicy parse(String name) {
+            for (LinkPolicy policy: values()) {
+                if (policy.name().equalsIgnoreCase(name)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException(String.format("Unknown link policy %s, expected follow or skip.", name));
+        }
+    }
+
     private DependencyReader() {
         throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", DependencyReader.class.getName()));
     }
@@ -36,6 +77,401 @@ public class DependencyReader {
      * @return Map with required file paths for each file in the directory
      */
     public static Map<String, Set<String>> getDependencyMap(String rootPath, boolean invert) {
+        return getDependencyMap(rootPath, invert, false);
+    }
+
+    /**
+     * The same as {@link #getDependencyMap(String, boolean)}, but files can be read in the order of their inode numbers
+     * instead of the directory listing order, see {@link ReadScheduler}. The result doesn't depend on the read order.
+     *
+     * @param rootPath   path to a root directory
+     * @param invert     defines the direction of dependency
+     * @param inodeOrder true to read files in the order of their inode numbers
+     * @return Map with required file paths for each file in the directory
+     */
+    public static Map<String, Set<String>> getDependencyMap(String rootPath, boolean invert, boolean inodeOrder) {
+        return getDependencyMap(rootPath, invert, inodeOrder, LinkPolicy.FOLLOW);
+    }
+
+    /**
+     * The same as {@link #getDependencyMap(String, boolean, boolean)} with the given policy for symbolic links.
+     * Requirements of aliases of a file are resolved to the path the file is read through.
+     *
+     * @param rootPath   path to a root directory
+     * @param invert     defines the direction of dependency
+     * @param inodeOrder true to read files in the order of their inode numbers
+     * @param links      policy for symbolic links
+     * @return Map with required file paths for each file in the directory
+     */
+    public static Map<String, Set<String>> getDependencyMap(String rootPath, boolean invert, boolean inodeOrder, LinkPolicy links) {
+        return getDependencyMap(rootPath, invert, inodeOrder, links, false);
+    }
+
+    /**
+     * The same as {@link #getDependencyMap(String, boolean, boolean, LinkPolicy)}, but files with byte-identical contents
+     * can be deduplicated (see {@link ContentDuplicates}): only the original of each group is read and present
+     * in the map, and requirements of its duplicates are resolved to it. Files are hashed concurrently
+     * by as many threads as there are processors.
+     *
+     * @param rootPath   path to a root directory
+     * @param invert     defines the direction of dependency
+     * @param inodeOrder true to read files in the order of their inode numbers
+     * @param links      policy for symbolic links
+     * @param dedupe     true to deduplicate files with identical contents
+     * @return Map with required file paths for each file in the directory
+     */
+    public static Map<String, Set<String>> getDependencyMap(String rootPath, boolean invert, boolean inodeOrder, LinkPolicy links, boolean dedupe) {
+        File rootFile = checkRootPath(rootPath);
+        FileIdentity identity = new FileIdentity(links);
+        Map<String, Set<String>> result = new HashMap<>();
+        List<File> files = collectFiles(rootFile, identity, inodeOrder, DependencyReader::listChildren);
+        if (dedupe) {
+            ExecutorService executor = IoExecutors.newExecutor(Runtime.getRuntime().availableProcessors());
+            try {
+                identity.addDuplicates(ContentDuplicates.find(files, executor));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reading of dependencies was interrupted.", ex);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        PathIndex index = new PathIndex(rootFile, () -> files);
+        for (File file: files) {
+            if (!identity.isDuplicate(file)) {
+                fillFileRequirements(file, result, rootPath, invert, identity, index);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a map with required file paths only for the given entry files and all the files they require transitively.
+     * Unlike {@link #getDependencyMap(String, boolean)}, the directory is not traversed: requirements are followed
+     * starting from the entries, so only the files of the closure are read.
+     * It is guaranteed that each file path of the closure is present in the result map as a key.
+     *
+     * @param rootPath path to a root directory
+     * @param entries  paths of entry files, either absolute or relative to the root directory (like in require directives)
+     * @param invert   defines the direction of dependency, the same as for {@link #getDependencyMap(String, boolean)}
+     * @return Map with required file paths for each file of the closure
+     *
+     * @throws IllegalArgumentException if any entry is not a file
+     */
+    public static Map<String, Set<String>> getClosureDependencyMap(String rootPath, Collection<String> entries, boolean invert) {
+        File rootFile = checkRootPath(rootPath);
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("At least one entry file is required.");
+        }
+        FileIdentity identity = new FileIdentity(LinkPolicy.FOLLOW);
+        PathIndex index = walkingIndex(rootFile, LinkPolicy.FOLLOW);
+        Map<String, Set<String>> result = new HashMap<>();
+        Set<String> visited = new HashSet<>();
+        Deque<File> queue = new ArrayDeque<>();
+        for (String entry: entries) {
+            File file = new File(resolvePath(rootPath, entry));
+            if (!file.isFile()) {
+                throw new IllegalArgumentException(String.format("Entry %s does not exist or it is not a file.", entry));
+            }
+            String filePath = identity.canonicalPath(file);
+            if (visited.add(filePath)) {
+                queue.add(new File(filePath));
+            }
+        }
+        while (!queue.isEmpty()) {
+            File file = queue.poll();
+            Set<String> dependencies = file.canRead() ? readRequirements(file, rootPath, identity::canonicalPath, index) : Collections.emptySet();
+            putRequirements(file.getPath(), dependencies, result, invert);
+            for (String dep: dependencies) {
+                if (visited.add(dep)) {
+                    queue.add(new File(dep));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a map with required file paths for the files of the given subtrees only.
+     * Required files may lie outside the subtrees, they are present in the result map as well, the same way
+     * as in {@link #getDependencyMap(String, boolean)}. Maps of disjoint subtrees covering the directory
+     * together make the map of the whole directory.
+     *
+     * @param rootPath path to a root directory, require directives are resolved against it
+     * @param subtrees paths of directories or files inside the root directory
+     * @param invert   defines the direction of dependency, the same as for {@link #getDependencyMap(String, boolean)}
+     * @return Map with required file paths for each file of the subtrees
+     */
+    public static Map<String, Set<String>> getSubtreeDependencyMap(String rootPath, Collection<String> subtrees, boolean invert) {
+        return getSubtreeDependencyMap(rootPath, subtrees, invert, LinkPolicy.FOLLOW);
+    }
+
+    /**
+     * The same as {@link #getSubtreeDependencyMap(String, Collection, boolean)} with the given policy for symbolic links.
+     * Aliases of a file are detected only within the given subtrees and their requirements.
+     *
+     * @param rootPath path to a root directory, require directives are resolved against it
+     * @param subtrees paths of directories or files inside the root directory
+     * @param invert   defines the direction of dependency
+     * @param links    policy for symbolic links
+     * @return Map with required file paths for each file of the subtrees
+     */
+    public static Map<String, Set<String>> getSubtreeDependencyMap(String rootPath, Collection<String> subtrees, boolean invert, LinkPolicy links) {
+        File rootFile = checkRootPath(rootPath);
+        if (subtrees == null) {
+            throw new IllegalArgumentException("subtrees cannot be null");
+        }
+        FileIdentity identity = new FileIdentity(links);
+        PathIndex index = walkingIndex(rootFile, links);
+        Map<String, Set<String>> result = new HashMap<>();
+        // All subtrees are traversed before requirements are read, so that a file gets the path the traversal meets first,
+        // not the one it is required by
+        List<File> files = new ArrayList<>();
+        for (String subtree: subtrees) {
+            collectFiles(new File(subtree), identity, files);
+        }
+        for (File file: files) {
+            fillFileRequirements(file, result, rootPath, invert, identity, index);
+        }
+        return result;
+    }
+
+    /**
+     * Traverses the given path and creates a dependency graph of all files in the directory.
+     * Files are read by several threads, that is faster than {@link #getDependencyMap(String, boolean)} for large directories.
+     * It is guaranteed that each file is present in the graph as a node.
+     *
+     * @param rootPath path to a root directory
+     * @param invert   defines the direction of arcs.<br>
+     *                 <i>true</i>: arcs go from a file to referencing files<br>
+     *                 <i>false</i>: arcs go from a file to required files
+     * @param threads  number of threads reading files
+     * @return dependency graph, node ids are absolute file paths
+     */
+    public static DirectedGraph getDependencyGraph(String rootPath, boolean invert, int threads) {
+        return getDependencyGraph(rootPath, invert, threads, false);
+    }
+
+    /**
+     * The same as {@link #getDependencyGraph(String, boolean, int)}, but files can be taken by the threads in the order
+     * of their inode numbers instead of the directory listing order, see {@link ReadScheduler}.
+     *
+     * @param rootPath   path to a root directory
+     * @param invert     defines the direction of arcs
+     * @param threads    number of threads reading files
+     * @param inodeOrder true to read files in the order of their inode numbers
+     * @return dependency graph, node ids are absolute file paths
+     */
+    public static DirectedGraph getDependencyGraph(String rootPath, boolean invert, int threads, boolean inodeOrder) {
+        return getDependencyGraph(rootPath, invert, threads, inodeOrder, LinkPolicy.FOLLOW);
+    }
+
+    /**
+     * The same as {@link #getDependencyGraph(String, boolean, int, boolean)} with the given policy for symbolic links.
+     * Directories are listed and files are read by tasks of an {@link IoExecutors} executor, so on Java 21
+     * the number of threads may exceed the number of processors many times over to overlap I/O waits.
+     *
+     * @param rootPath   path to a root directory
+     * @param invert     defines the direction of arcs
+     * @param threads    number of threads reading files
+     * @param inodeOrder true to read files in the order of their inode numbers
+     * @param links      policy for symbolic links
+     * @return dependency graph, node ids are absolute file paths
+     */
+    public static DirectedGraph getDependencyGraph(String rootPath, boolean invert, int threads, boolean inodeOrder, LinkPolicy links) {
+        return getDependencyGraph(rootPath, invert, threads, inodeOrder, links, false);
+    }
+
+    /**
+     * The same as {@link #getDependencyGraph(String, boolean, int, boolean, LinkPolicy)}, but files with byte-identical
+     * contents can be deduplicated, like in {@link #getDependencyMap(String, boolean, boolean, LinkPolicy, boolean)}.
+     * Files are hashed by the same threads that read them.
+     *
+     * @param rootPath   path to a root directory
+     * @param invert     defines the direction of arcs
+     * @param threads    number of threads reading files
+     * @param inodeOrder true to read files in the order of their inode numbers
+     * @param links      policy for symbolic links
+     * @param dedupe     true to deduplicate files with identical contents
+     * @return dependency graph, node ids are absolute file paths
+     */
+    public static DirectedGraph getDependencyGraph(String rootPath, boolean invert, int threads, boolean inodeOrder, LinkPolicy links,
+                                                   boolean dedupe) {
+        checkRootPath(rootPath);
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        }
+        return getDependencyGraph(rootPath, invert, new AdaptiveConcurrency(threads, threads), inodeOrder, links, dedupe);
+    }
+
+    /**
+     * The same as {@link #getDependencyGraph(String, boolean, int, boolean, LinkPolicy, boolean)}, but the number
+     * of files read at the same time is limited by the controller, which adapts it to the measured throughput
+     * and latency of reading. As many threads as the upper bound of the controller are started.
+     *
+     * @param rootPath    path to a root directory
+     * @param invert      defines the direction of arcs
+     * @param concurrency controller of the number of files read at the same time, throughput is measured in files
+     * @param inodeOrder  true to read files in the order of their inode numbers
+     * @param links       policy for symbolic links
+     * @param dedupe      true to deduplicate files with identical contents
+     * @return dependency graph, node ids are absolute file paths
+     */
+    public static DirectedGraph getDependencyGraph(String rootPath, boolean invert, AdaptiveConcurrency concurrency, boolean inodeOrder,
+                                                   LinkPolicy links, boolean dedupe) {
+        File rootFile = checkRootPath(rootPath);
+        if (concurrency == null) {
+            throw new IllegalArgumentException("concurrency cannot be null");
+        }
+        int threads = concurrency.getMaximum();
+        FileIdentity identity = new FileIdentity(links);
+        ConcurrentGraphBuilder builder = new ConcurrentGraphBuilder();
+        ExecutorService executor = IoExecutors.newExecutor(threads);
+        try {
+            Map<File, File[]> listings = listConcurrently(rootFile, links, executor);
+            List<File> files = collectFiles(rootFile, identity, inodeOrder, directory -> {
+                File[] children = listings.get(directory);
+                return children != null ? children : listChildren(directory);
+            });
+            if (dedupe) {
+                identity.addDuplicates(ContentDuplicates.find(files, executor));
+            }
+            PathIndex index = new PathIndex(rootFile, () -> files);
+            // Each thread takes the next unread file until all files are read
+            AtomicInteger next = new AtomicInteger();
+            Callable<Void> reader = () -> {
+                for (int i = next.getAndIncrement(); i < files.size(); i = next.getAndIncrement()) {
+                    File file = files.get(i);
+                    if (identity.isDuplicate(file)) continue;
+                    String filePath = file.getAbsolutePath();
+                    builder.addNode(filePath);
+                    long started = concurrency.acquire();
+                    try {
+                        for (String dep: readRequirements(file, rootPath, identity::canonicalPath, index)) {
+                            if (invert) {
+                                builder.addArc(dep, filePath);
+                            } else {
+                                builder.addArc(filePath, dep);
+                            }
+                        }
+                    } finally {
+                        concurrency.release(started, 1);
+                    }
+                }
+                return null;
+            };
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(reader));
+            }
+            for (Future<?> future: futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reading of dependencies was interrupted.", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Merges nodes of files with byte-identical contents into the node of their original (see {@link ContentDuplicates}),
+     * for graphs built without deduplication, e.g. by {@link ShardedScan}. Unlike the deduplicating scan,
+     * all the files have already been read.
+     *
+     * @param graph   dependency graph, node ids are absolute file paths; it is modified
+     * @param threads number of threads hashing files
+     * @return number of merged nodes
+     */
+    public static int mergeDuplicates(DirectedGraph graph, int threads) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        List<File> files = graph.getNodeIds().stream().map(File::new).filter(File::isFile).collect(Collectors.toList());
+        ExecutorService executor = IoExecutors.newExecutor(threads);
+        try {
+            int merged = 0;
+            for (Map.Entry<String, String> duplicate: ContentDuplicates.find(files, executor).entrySet()) {
+                if (graph.mergeNode(duplicate.getKey(), duplicate.getValue())) {
+                    merged++;
+                }
+            }
+            return merged;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing of files was interrupted.", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Traverses the given path and passes all files and their requirements to the builder, so that neither the file list
+     * nor the requirements are kept in memory. Use it for directories whose dependency graph doesn't fit into memory.
+     * <p>
+     * Memory use doesn't grow with the tree, so physical files are not tracked: symbolic links are followed, and only
+     * the directories on the current traversal path are remembered to cut link loops. Aliases of a file (symbolic and
+     * hard links) become separate nodes, and a file is required by the path given in a directive.
+     * Glob and directory directives would need an index of the whole tree, so they are rejected.
+     *
+     * @param rootPath path to a root directory
+     * @param invert   defines the direction of arcs, the same as for {@link #getDependencyGraph(String, boolean, int)}
+     * @param builder  builder writing the graph to disk, node ids are absolute file paths
+     * @throws IOException if the builder cannot write its temporary files
+     * @throws IllegalArgumentException if a file has a glob or a directory directive
+     */
+    public static void scanDependencies(String rootPath, boolean invert, ExternalGraphBuilder builder) throws IOException {
+        File rootFile = checkRootPath(rootPath);
+        if (builder == null) {
+            throw new IllegalArgumentException("builder cannot be null");
+        }
+        scanFiles(rootFile, rootPath, invert, builder, new HashSet<>());
+    }
+
+    /**
+     * Traverses the given path and lists all readable files in the directory, exactly the files
+     * {@link #getDependencyMap(String, boolean)} reads.
+     *
+     * @param rootPath path to a root directory
+     * @return absolute paths of the files in the directory
+     */
+    public static List<String> listFiles(String rootPath) {
+        return listFiles(rootPath, LinkPolicy.FOLLOW);
+    }
+
+    /**
+     * The same as {@link #listFiles(String)} with the given policy for symbolic links.
+     *
+     * @param rootPath path to a root directory
+     * @param links    policy for symbolic links
+     * @return absolute paths of the files in the directory
+     */
+    public static List<String> listFiles(String rootPath, LinkPolicy links) {
+        return collectFiles(checkRootPath(rootPath), new FileIdentity(links), new ArrayList<>()).stream()
+                .map(File::getAbsolutePath)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Builds an absolute path of a file the same way it is identified in the dependency map.
+     *
+     * @param rootPath path to a root directory
+     * @param path     either an absolute path or a path relative to the root directory (like in require directives)
+     * @return absolute file path
+     */
+    public static String resolvePath(String rootPath, String path) {
+        File file = new File(path);
+        return (file.isAbsolute() ? file : new File(rootPath, path)).getAbsolutePath();
+    }
+
+    private static File checkRootPath(String rootPath) {
         if (rootPath == null) {
             throw new IllegalArgumentException("Root path value cannot be null.");
         }
@@ -43,43 +479,197 @@ public class DependencyReader {
         if (!rootFile.isDirectory()) {
             throw new IllegalArgumentException(String.format("%s does not exist or it is not a directory.", rootPath));
         }
-        Map<String, Set<String>> result = new HashMap<>();
-        fillFileRequirements(rootFile, result, rootPath, invert);
-        return result;
+        return rootFile;
+    }
+
+    private static List<File> collectFiles(File rootFile, FileIdentity identity, boolean inodeOrder, Function<File, File[]> lister) {
+        List<File> files = collectFiles(rootFile, identity, lister, new ArrayList<>());
+        return inodeOrder ? ReadScheduler.sortByInode(files, File::toPath) : files;
+    }
+
+    /**
+     * Lists the directory tree level by level, directories of a level are listed concurrently.
+     * The listings only save {@link #collectFiles(File, FileIdentity, Function, List)} the waits for a file system,
+     * so a directory missing from them is listed again by the traversal.
+     *
+     * @return sorted children of each listed directory
+     */
+    private static Map<File, File[]> listConcurrently(File rootFile, LinkPolicy links, ExecutorService executor)
+            throws InterruptedException, ExecutionException {
+        Map<File, File[]> listings = new ConcurrentHashMap<>();
+        // Protects against link loops, the traversal decides on aliases itself
+        FileIdentity visited = new FileIdentity(links);
+        visited.claim(rootFile);
+        List<File> level = Collections.singletonList(rootFile);
+        while (!level.isEmpty()) {
+            List<Future<List<File>>> futures = new ArrayList<>(level.size());
+            for (File directory: level) {
+                futures.add(executor.submit(() -> {
+                    File[] children = listChildren(directory);
+                    listings.put(directory, children);
+                    List<File> directories = new ArrayList<>();
+                    for (File child: children) {
+                        if (child.isDirectory() && visited.claim(child) != null) {
+                            directories.add(child);
+                        }
+                    }
+                    return directories;
+                }));
+            }
+            List<File> nextLevel = new ArrayList<>();
+            for (Future<List<File>> future: futures) {
+                nextLevel.addAll(future.get());
+            }
+            level = nextLevel;
+        }
+        return listings;
     }
 
     /**
-     * Fills the dependency map while visiting all files using depth-first algorithm.
+     * Collects all readable files while visiting the directory tree using depth-first algorithm.
+     * Children of a directory are visited in the order of names, so the first path met for a file
+     * (which becomes its canonical path) doesn't depend on the directory listing order.
+     *
+     * @param file     current file path
+     * @param identity physical files and directories already visited
+     * @param files    the list being filled
+     * @return the given list
+     */
+    private static List<File> collectFiles(File file, FileIdentity identity, List<File> files) {
+        return collectFiles(file, identity, DependencyReader::listChildren, files);
+    }
+
+    /**
+     * The same as {@link #collectFiles(File, FileIdentity, List)} with the given function listing sorted children of a directory.
+     */
+    private static List<File> collectFiles(File file, FileIdentity identity, Function<File, File[]> lister, List<File> files) {
+        if (file.isDirectory()) {
+            if (identity.claim(file) != null) {
+                for (File child: lister.apply(file)) {
+                    collectFiles(child, identity, lister, files);
+                }
+            }
+        } else if (file.isFile() && file.canRead() && identity.claim(file) != null) {
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Visits the directory tree in the same order as {@link #collectFiles(File, FileIdentity, List)}, passing each file
+     * to the builder under its own path.
+     *
+     * @param path directories on the current traversal path, a directory met again is a link loop
+     */
+    private static void scanFiles(File file, String rootPath, boolean invert, ExternalGraphBuilder builder, Set<Object> path) throws IOException {
+        if (file.isDirectory()) {
+            Object key = FileIdentity.key(file);
+            if (path.add(key)) {
+                for (File child: listChildren(file)) {
+                    scanFiles(child, rootPath, invert, builder, path);
+                }
+                path.remove(key);
+            }
+        } else if (file.isFile() && file.canRead()) {
+            String filePath = file.getAbsolutePath();
+            builder.addNode(filePath);
+            for (String dep: readRequirements(file, rootPath, File::getAbsolutePath, null)) {
+                if (invert) {
+                    builder.addArc(dep, filePath);
+                } else {
+                    builder.addArc(filePath, dep);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return children of the directory sorted by name, or an empty array if the directory cannot be listed
+     */
+    static File[] listChildren(File directory) {
+        File[] children = directory.listFiles();
+        if (children == null) return new File[0];
+        Arrays.sort(children);
+        return children;
+    }
+
+    /**
+     * Reads requirements of the file and puts them to the dependency map.
      * Incorrect paths are not included in the resulting map.
      *
-     * @param file          current file path
+     * @param file          file path
      * @param dependencyMap the map instance being filled
      * @param rootPath      path to the root directory for building an absolute path for each dependency
      * @param invert        dependency direction
+     * @param identity      canonical paths of required files
+     * @param index         index expanding patterns and directories
      */
-    private static void fillFileRequirements(File file, Map<String, Set<String>> dependencyMap, String rootPath, boolean invert) {
-        if (file.isDirectory()) {
-            for (File child: file.listFiles()) {
-                fillFileRequirements(child, dependencyMap, rootPath, invert);
+    private static void fillFileRequirements(File file, Map<String, Set<String>> dependencyMap, String rootPath, boolean invert, FileIdentity identity,
+                                             PathIndex index) {
+        putRequirements(file.getAbsolutePath(), readRequirements(file, rootPath, identity::canonicalPath, index), dependencyMap, invert);
+    }
+
+    /**
+     * Puts requirements of the file to the dependency map.
+     *
+     * @param filePath      absolute file path
+     * @param dependencies  absolute paths of required files
+     * @param dependencyMap the map instance being filled
+     * @param invert        dependency direction
+     */
+    private static void putRequirements(String filePath, Set<String> dependencies, Map<String, Set<String>> dependencyMap, boolean invert) {
+        if (invert) {
+            dependencyMap.putIfAbsent(filePath, new HashSet<>());
+            for (String dep: dependencies) {
+                dependencyMap.computeIfAbsent(dep, (k) -> new HashSet<>()).add(filePath);
             }
-            return;
+        } else {
+            dependencyMap.put(filePath, dependencies);
         }
-        if (file.isFile() && file.canRead()) {
-            Set<String> dependencies = DATA_EXTRACTOR.findAll(file).stream()
-                            .map(p -> new File(rootPath, p))
-                            .filter(File::isFile)
-                            .map(File::getAbsolutePath)
-                            .collect(Collectors.toSet());
-            String filePath = file.getAbsolutePath();
-            if (invert) {
-                dependencyMap.putIfAbsent(filePath, new HashSet<>());
-                for (String dep: dependencies) {
-                    dependencyMap.computeIfAbsent(dep, (k) -> new HashSet<>()).add(filePath);
+    }
+
+    /**
+     * Reads requirements of the file and resolves them against the root directory.
+     * A glob pattern or a directory requires all matching files (see {@link PathIndex}) except the file itself.
+     * Incorrect paths are skipped, and so is the root directory (an empty path), which would require the whole tree.
+     *
+     * @param file      file path
+     * @param rootPath  path to the root directory for building an absolute path for each dependency
+     * @param canonical canonical path of a required file, so that a file required through a symbolic or a hard link
+     *                  is identified by the path it is read through
+     * @param index     index expanding patterns and directories, or null if they are not supported
+     * @return absolute paths of required files
+     * @throws IllegalArgumentException if the file has a glob or a directory directive and there is no index
+     */
+    private static Set<String> readRequirements(File file, String rootPath, Function<File, String> canonical, PathIndex index) {
+        Set<String> result = new HashSet<>();
+        for (String requirement: DATA_EXTRACTOR.findAllChunked(file)) {
+            if (PathIndex.isRoot(requirement)) continue;
+            File required = new File(rootPath, requirement);
+            if (required.isFile()) {
+                result.add(canonical.apply(required));
+            } else if (PathIndex.isPattern(requirement) || required.isDirectory()) {
+                if (index == null) {
+                    throw new IllegalArgumentException(String.format("File %s requires '%s', glob and directory requirements "
+                                                                     + "are not supported by the on-disk scan.", file.getPath(), requirement));
+                }
+                String self = canonical.apply(file);
+                for (File match: index.expand(requirement)) {
+                    String path = canonical.apply(match);
+                    if (!path.equals(self)) {
+                        result.add(path);
+                    }
                 }
-            } else {
-                dependencyMap.put(filePath, dependencies);
             }
         }
+        return result;
+    }
+
+    /**
+     * @return index of the files of the tree, which is traversed only when a directive is expanded for the first time
+     */
+    private static PathIndex walkingIndex(File rootFile, LinkPolicy links) {
+        return new PathIndex(rootFile, () -> collectFiles(rootFile, new FileIdentity(links), new ArrayList<>()));
     }
 
     /**
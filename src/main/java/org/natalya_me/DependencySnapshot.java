@@ -0,0 +1,123 @@
+package org.natalya_me;
+
+import org.natalya_me.algorithm.DirectedGraph;
+import org.natalya_me.algorithm.GraphSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class for saving a dependency graph of a directory to a file and loading it back instead of reading all files again.
+ * Besides the graph, a snapshot contains the root path, the policy for symbolic links the directory was scanned with,
+ * and the size and the modification time of each file. A snapshot is valid only for the same policy and while the directory
+ * contains exactly the same files with the same sizes and modification times, checking it requires only listing the directory.
+ * <p>
+ * Format: magic and version ints, root path, link policy name, {@link GraphSnapshot}, size and modification time (longs)
+ * for each graph node in the order of the snapshot string table.
+ */
+public class DependencySnapshot {
+
+    private static final int MAGIC = 0x46534453;
+    private static final int VERSION = 2;
+
+    private DependencySnapshot() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", DependencySnapshot.class.getName()));
+    }
+
+    /**
+     * Saves the dependency graph of the directory scanned following symbolic links.
+     *
+     * @param snapshotFile snapshot file path, an existing file is overwritten
+     * @param rootPath     path to the root directory the graph was built for
+     * @param graph        dependency graph, its node ids are file paths
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void save(Path snapshotFile, String rootPath, DirectedGraph graph) throws IOException {
+        save(snapshotFile, rootPath, graph, DependencyReader.LinkPolicy.FOLLOW);
+    }
+
+    /**
+     * Saves the dependency graph of the directory scanned with the given policy for symbolic links.
+     *
+     * @param snapshotFile snapshot file path, an existing file is overwritten
+     * @param rootPath     path to the root directory the graph was built for
+     * @param graph        dependency graph, its node ids are file paths
+     * @param links        policy for symbolic links the graph was built with
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void save(Path snapshotFile, String rootPath, DirectedGraph graph, DependencyReader.LinkPolicy links) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(snapshotFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(new File(rootPath).getAbsolutePath());
+            out.writeUTF(links.name());
+            List<String> ids = GraphSnapshot.write(graph, out);
+            for (String id: ids) {
+                File file = new File(id);
+                out.writeLong(file.length());
+                out.writeLong(file.lastModified());
+            }
+        }
+    }
+
+    /**
+     * Loads the dependency graph of the directory scanned following symbolic links if the snapshot is still valid.
+     *
+     * @param snapshotFile snapshot file path
+     * @param rootPath     path to the root directory
+     * @return the dependency graph, or null if there is no snapshot, or it was made for another directory,
+     *         or any file was added, removed or modified since the snapshot was saved
+     * @throws IOException if the snapshot cannot be read or is corrupted
+     */
+    public static DirectedGraph load(Path snapshotFile, String rootPath) throws IOException {
+        return load(snapshotFile, rootPath, DependencyReader.LinkPolicy.FOLLOW);
+    }
+
+    /**
+     * Loads the dependency graph of the directory scanned with the given policy for symbolic links if the snapshot is still valid.
+     *
+     * @param snapshotFile snapshot file path
+     * @param rootPath     path to the root directory
+     * @param links        policy for symbolic links
+     * @return the dependency graph, or null if there is no snapshot, or it was made for another directory or another policy,
+     *         or any file was added, removed or modified since the snapshot was saved
+     * @throws IOException if the snapshot cannot be read or is corrupted
+     */
+    public static DirectedGraph load(Path snapshotFile, String rootPath, DependencyReader.LinkPolicy links) throws IOException {
+        if (!Files.isRegularFile(snapshotFile)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a dependency snapshot: wrong magic number.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported dependency snapshot version %d.", version));
+            }
+            if (!in.readUTF().equals(new File(rootPath).getAbsolutePath())) return null;
+            if (!in.readUTF().equals(links.name())) return null;
+            GraphSnapshot snapshot = GraphSnapshot.read(in);
+            Map<String, long[]> stamps = new HashMap<>();
+            for (String id: snapshot.getIds()) {
+                stamps.put(id, new long[] {in.readLong(), in.readLong()});
+            }
+            List<String> files = DependencyReader.listFiles(rootPath, links);
+            if (files.size() != stamps.size()) return null;
+            for (String path: files) {
+                long[] stamp = stamps.get(path);
+                if (stamp == null) return null;
+                File file = new File(path);
+                if (file.length() != stamp[0] || file.lastModified() != stamp[1]) return null;
+            }
+            return snapshot.getGraph();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.natalya_me;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks physical files met during a traversal, so that aliases of a file (symbolic and hard links) are visited
+ * and reported under a single path. A file is identified by its file key (device and inode on Unix),
+ * or by its real path if the file system has no file keys. The first path met for a file becomes its canonical path,
+ * for a traversal it is the smallest path in {@link #TRAVERSAL_ORDER}.
+ * <p>
+ * The class is thread safe.
+ */
+class FileIdentity {
+
+    private final DependencyReader.LinkPolicy policy;
+    // Canonical path of each met file
+    private final Map<Object, String> paths = new ConcurrentHashMap<>();
+    // Files and directories already claimed for a visit
+    private final Set<Object> claimed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // Path of the original for the canonical path of each registered duplicate
+    private final Map<String, String> originals = new ConcurrentHashMap<>();
+
+    /**
+     * @param policy policy for symbolic links met in a traversal
+     */
+    FileIdentity(DependencyReader.LinkPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("policy cannot be null");
+        }
+        this.policy = policy;
+    }
+
+    /**
+     * Claims the file or directory for a visit.
+     *
+     * @param file file or directory found by a traversal
+     * @return canonical path of the file if it is visited for the first time,
+     *         or null if it has been visited through another path or it is a link skipped by the policy
+     */
+    String claim(File file) {
+        if (policy == DependencyReader.LinkPolicy.SKIP && Files.isSymbolicLink(file.toPath())) {
+            return null;
+        }
+        Object key = key(file);
+        String path = paths.computeIfAbsent(key, k -> file.getAbsolutePath());
+        return claimed.add(key) ? path : null;
+    }
+
+    /**
+     * @param file any existing file, e.g. a required one
+     * @return path under which the file is (or will be) visited
+     */
+    String canonicalPath(File file) {
+        String path = paths.computeIfAbsent(key(file), k -> file.getAbsolutePath());
+        return originals.getOrDefault(path, path);
+    }
+
+    /**
+     * Registers files with duplicate contents.
+     *
+     * @param duplicates path of the original for the canonical path of each duplicate
+     */
+    void addDuplicates(Map<String, String> duplicates) {
+        originals.putAll(duplicates);
+    }
+
+    /**
+     * @param file a claimed file
+     * @return true if the file is a registered duplicate, which needs not be read
+     */
+    boolean isDuplicate(File file) {
+        return originals.containsKey(file.getAbsolutePath());
+    }
+
+    /**
+     * Order in which a traversal meets paths: depth-first, with the children of a directory in the order of their names
+     * (see {@link DependencyReader#listChildren(File)}). Paths are compared element by element, so that a path comes
+     * after its directory and before the next sibling of the directory, e.g. {@code /r/a/b} comes before {@code /r/a-c}.
+     * A traversal of a tree without link loops meets the smallest path of each file first.
+     */
+    static final Comparator<String> TRAVERSAL_ORDER = FileIdentity::compareTraversalOrder;
+
+    private static int compareTraversalOrder(String first, String second) {
+        String[] firstNames = first.split(Pattern.quote(File.separator), -1);
+        String[] secondNames = second.split(Pattern.quote(File.separator), -1);
+        for (int i = 0; i < Math.min(firstNames.length, secondNames.length); i++) {
+            // The names are compared the same way as the files of a listing
+            int result = new File(firstNames[i]).compareTo(new File(secondNames[i]));
+            if (result != 0) return result;
+        }
+        return Integer.compare(firstNames.length, secondNames.length);
+    }
+
+    /**
+     * @param file file or directory
+     * @return object identifying the physical file, equal for all its aliases
+     */
+    static Object key(File file) {
+        try {
+            Object key = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+            return key != null ? key : file.toPath().toRealPath();
+        } catch (IOException ex) {
+            // The file cannot be identified, so it is its own alias
+            return file.getAbsolutePath();
+        }
+    }
+}
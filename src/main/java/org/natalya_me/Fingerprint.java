@@ -0,0 +1,201 @@
+package org.natalya_me;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fingerprint of a concatenation result, saved next to the target, so that a run with the same sources can skip writing.
+ * It consists of the hash of source paths, sizes and modification times (see {@link Checkpoint#orderHash(List)}),
+ * optionally the hash of source contents, the output options the target was written with (e.g. its compression),
+ * and the size and modification time of the written target.
+ * Checking the metadata hash requires only a metadata walk; the content hash requires reading all sources,
+ * but doesn't depend on modification times. The fingerprint is computed for the sources in concatenation order, which
+ * is known only after the dependency scan, and the scan reads all sources for their directives. So a run without changes
+ * reads metadata only if the dependency graph comes from a valid {@link DependencySnapshot}.
+ * <p>
+ * Format: magic and version ints, lengths and bytes of both hashes (an empty content hash if it wasn't computed),
+ * output options (modified UTF-8), target size and modification time (longs).
+ */
+public class Fingerprint {
+
+    private static final int MAGIC = 0x46534650;
+    private static final int VERSION = 2;
+
+    private final byte[] metadataHash;
+    private final byte[] contentHash;
+    private final String output;
+    private final long targetSize;
+    private final long targetModified;
+
+    private Fingerprint(byte[] metadataHash, byte[] contentHash, String output, long targetSize, long targetModified) {
+        this.metadataHash = metadataHash;
+        this.contentHash = contentHash;
+        this.output = output;
+        this.targetSize = targetSize;
+        this.targetModified = targetModified;
+    }
+
+    /**
+     * Computes the fingerprint of the sources concatenated into a plain target.
+     *
+     * @param files   source file paths in the order of concatenation
+     * @param content true to compute the content hash as well
+     * @param threads number of threads reading sources for the content hash
+     * @return fingerprint without target attributes
+     * @throws IOException if a source cannot be read
+     */
+    public static Fingerprint compute(List<String> files, boolean content, int threads) throws IOException {
+        return compute(files, "", content, threads);
+    }
+
+    /**
+     * Computes the fingerprint of the sources concatenated into a target with the given output options.
+     *
+     * @param files   source file paths in the order of concatenation
+     * @param output  options defining the format of the target, equal strings for equal formats; empty for a plain target
+     * @param content true to compute the content hash as well
+     * @param threads number of threads reading sources for the content hash
+     * @return fingerprint without target attributes
+     * @throws IOException if a source cannot be read
+     */
+    public static Fingerprint compute(List<String> files, String output, boolean content, int threads) throws IOException {
+        if (output == null) {
+            throw new IllegalArgumentException("Output options cannot be null.");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        }
+        return new Fingerprint(Checkpoint.orderHash(files), content ? contentHash(files, threads) : new byte[0], output, -1, -1);
+    }
+
+    /**
+     * Loads a fingerprint.
+     *
+     * @param file fingerprint file path
+     * @return the fingerprint, or null if there is no such file
+     * @throws IOException if the file cannot be read or is not a fingerprint
+     */
+    public static Fingerprint load(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a fingerprint: wrong magic number.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported fingerprint version %d.", version));
+            }
+            byte[] metadataHash = new byte[in.readUnsignedShort()];
+            in.readFully(metadataHash);
+            byte[] contentHash = new byte[in.readUnsignedShort()];
+            in.readFully(contentHash);
+            return new Fingerprint(metadataHash, contentHash, in.readUTF(), in.readLong(), in.readLong());
+        }
+    }
+
+    /**
+     * Saves the fingerprint together with the current size and modification time of the target.
+     *
+     * @param file   fingerprint file path
+     * @param target written target
+     * @throws IOException if the file cannot be written or the target doesn't exist
+     */
+    public void save(Path file, Path target) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeShort(metadataHash.length);
+            out.write(metadataHash);
+            out.writeShort(contentHash.length);
+            out.write(contentHash);
+            out.writeUTF(output);
+            out.writeLong(Files.size(target));
+            out.writeLong(Files.getLastModifiedTime(target).toMillis());
+        }
+    }
+
+    /**
+     * Checks if the target written with this (saved) fingerprint is still up to date for the given sources.
+     * The target must be unchanged since it was written with the same output options. If the given fingerprint has a content hash, the content
+     * hashes are compared, otherwise the metadata hashes are.
+     *
+     * @param current fingerprint of the current sources
+     * @param target  target path
+     * @return true if writing the target can be skipped
+     */
+    public boolean isUpToDate(Fingerprint current, Path target) {
+        try {
+            if (!Files.isRegularFile(target) || Files.size(target) != targetSize
+                    || Files.getLastModifiedTime(target).toMillis() != targetModified) {
+                return false;
+            }
+        } catch (IOException ex) {
+            return false;
+        }
+        if (!output.equals(current.output)) {
+            return false;
+        }
+        if (current.contentHash.length > 0) {
+            return Arrays.equals(contentHash, current.contentHash);
+        }
+        return Arrays.equals(metadataHash, current.metadataHash);
+    }
+
+    /**
+     * Hashes the sources with several threads and combines their hashes in the order of the sources.
+     * The path of each source is hashed as well, so a different order gives a different hash.
+     */
+    private static byte[] contentHash(List<String> files, int threads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<byte[]>> hashes = new ArrayList<>(files.size());
+            for (String file: files) {
+                hashes.add(executor.submit(() -> hashFile(Paths.get(file))));
+            }
+            MessageDigest digest = Checkpoint.sha256();
+            for (int i = 0; i < files.size(); i++) {
+                digest.update(files.get(i).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(hashes.get(i).get());
+            }
+            return digest.digest();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Hashing of sources was interrupted.", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] hashFile(Path file) throws IOException {
+        MessageDigest digest = Checkpoint.sha256();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+}
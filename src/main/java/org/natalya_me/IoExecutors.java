@@ -0,0 +1,44 @@
+package org.natalya_me;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility class creating executors for blocking I/O tasks: listing directories, reading files.
+ * This version runs the tasks on a pool of platform threads. The multi-release JAR built on Java 21 contains
+ * another version of the class (src/main/java21), which starts a virtual thread per task, so that thousands of
+ * I/O waits on a high-latency file system can overlap without a platform thread for each.
+ */
+public class IoExecutors {
+
+    private IoExecutors() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", IoExecutors.class.getName()));
+    }
+
+    /**
+     * Creates an executor running at most the given number of tasks at the same time.
+     * Threads of the executor don't prevent the JVM from exiting.
+     *
+     * @param concurrency maximum number of running tasks
+     * @return a new executor, it must be shut down by the caller
+     */
+    public static ExecutorService newExecutor(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive.");
+        }
+        AtomicInteger number = new AtomicInteger();
+        return Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "io-" + number.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return true if executors of this class run tasks on virtual threads
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+}
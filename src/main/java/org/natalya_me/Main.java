@@ -1,67 +1,679 @@
 package org.natalya_me;
 
 import org.natalya_me.algorithm.DirectedGraph;
+import org.natalya_me.algorithm.ExternalGraphBuilder;
+import org.natalya_me.algorithm.GraphAnalytics;
+import org.natalya_me.algorithm.GraphQueries;
+import org.natalya_me.algorithm.MappedGraph;
+import org.natalya_me.algorithm.ReachabilityIndex;
 import org.natalya_me.algorithm.TopologicalOrdering;
+import org.natalya_me.algorithm.TransitiveReduction;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.ZipException;
 
 public class Main {
 
     private static final TopologicalOrdering algorithm = new TopologicalOrdering(Comparator.comparing(Main::extractFileName)
                                                                                            .thenComparing(DirectedGraph.Node::getId));
 
+    // Supported options and number of their values
+    private static final Map<String, Integer> OPTIONS = new HashMap<>();
+    static {
+        OPTIONS.put("graph-file", 1);
+        OPTIONS.put("snapshot", 1);
+        OPTIONS.put("threads", 1);
+        OPTIONS.put("workers", 1);
+        OPTIONS.put("entry", 1);
+        OPTIONS.put("dependents", 1);
+        OPTIONS.put("dependencies", 1);
+        OPTIONS.put("path-between", 2);
+        OPTIONS.put("reachability-index", 0);
+        OPTIONS.put("report", 1);
+        OPTIONS.put("report-top", 1);
+        OPTIONS.put("reduce", 0);
+        OPTIONS.put("redundant-report", 1);
+        OPTIONS.put("external-sort", 1);
+        OPTIONS.put("sort-buffer", 1);
+        OPTIONS.put("io-schedule", 0);
+        OPTIONS.put("io-stats", 0);
+        OPTIONS.put("resume", 0);
+        OPTIONS.put("skip-unchanged", 0);
+        OPTIONS.put("strict-fingerprint", 0);
+        OPTIONS.put("incremental", 0);
+        OPTIONS.put("compress", 1);
+        OPTIONS.put("compress-threads", 1);
+        OPTIONS.put("shard-size", 1);
+        OPTIONS.put("shard-files", 1);
+        OPTIONS.put("links", 1);
+        OPTIONS.put("io-concurrency", 1);
+        OPTIONS.put("dedupe", 0);
+        OPTIONS.put("adaptive-concurrency", 2);
+    }
+
+    // Default number of ids, arcs or ready nodes kept in memory by the external sort
+    private static final int DEFAULT_SORT_BUFFER = 1 << 20;
+
+    // Read-ahead window of the scheduled concatenation
+    private static final int SCHEDULE_WINDOW_FILES = 256;
+    private static final long SCHEDULE_WINDOW_BYTES = 64L << 20;
+
+    // Number of bytes written between checkpoints of the concatenation
+    private static final long CHECKPOINT_INTERVAL = 256L << 20;
+
+    // Target path meaning the standard output
+    private static final String STDOUT = "-";
+
+    // Options that need the whole graph on the heap, so they cannot be combined with a graph built on disk
+    private static final List<String> IN_MEMORY_GRAPH_OPTIONS = Arrays.asList("snapshot", "entry", "workers", "threads", "links", "dedupe",
+                                                                             "reduce", "redundant-report", "report", "dependents",
+                                                                             "dependencies", "path-between");
+
+    // Options that keep a file next to the target between runs
+    private static final List<String> TARGET_FILE_OPTIONS = Arrays.asList("resume", "incremental", "skip-unchanged");
+    // Options that define the format of the target, a target written with other values is not up to date.
+    // The number of compression threads doesn't change the compressed bytes.
+    private static final List<String> OUTPUT_OPTIONS = Arrays.asList("compress", "shard-size", "shard-files");
+    // Options that turn on the query mode
+    private static final List<String> QUERIES = Arrays.asList("dependents", "dependencies", "path-between");
+
     public static void main(String[] args) {
         try {
+            Arguments arguments = new Arguments(args, OPTIONS);
             // Source and target paths
-            String path = args[0];
-            String targetPath = null;
-            try {
-                targetPath = args[1];
-            } catch (ArrayIndexOutOfBoundsException ignored) {}
+            String path = arguments.getPositional(0);
+            if (path == null) {
+                System.err.println("A mandatory argument 'path' was not provided.");
+                return;
+            }
+            String targetPath = arguments.getPositional(1);
             if (targetPath == null) {
                 targetPath = "target.txt";
             }
-            // Read files and requirements
-            Map<String, Set<String>> dependencies = DependencyReader.getDependencyMap(path, true);
-            if (dependencies.isEmpty()) {
-                System.out.println("There is no files in the given directory, nothing to write");
+            if (STDOUT.equals(targetPath)) {
+                // The standard output carries the result, so messages go to the error stream
+                System.setOut(System.err);
+                // The standard output keeps no state between runs
+                for (String option: TARGET_FILE_OPTIONS) {
+                    if (arguments.hasOption(option)) {
+                        throw new IllegalArgumentException(String.format("Option --%s cannot be used with the standard output as the target.", option));
+                    }
+                }
+            }
+            // Keep the graph off the heap: requirements are written to disk during the scan and the graph file is built from them
+            String externalDirectory = arguments.getOption("external-sort");
+            String graphFile = arguments.getOption("graph-file");
+            if (externalDirectory != null || graphFile != null) {
+                String mode = externalDirectory != null ? "external-sort" : "graph-file";
+                for (String option: IN_MEMORY_GRAPH_OPTIONS) {
+                    if (arguments.hasOption(option)) {
+                        throw new IllegalArgumentException(String.format("Options --%s and --%s cannot be used together.", mode, option));
+                    }
+                }
+                String buffer = arguments.getOption("sort-buffer");
+                // Without --external-sort, temporary files are created next to the graph file
+                Path directory = externalDirectory != null ? Paths.get(externalDirectory) : Paths.get(graphFile).toAbsolutePath().getParent();
+                sortExternally(path, targetPath, directory, buffer == null ? DEFAULT_SORT_BUFFER : parseNumber("sort-buffer", buffer),
+                               externalDirectory != null, arguments);
                 return;
             }
-            // Sort files
-            DirectedGraph graph = DirectedGraph.createFromAdjacencyList(dependencies);
-            TopologicalOrdering.TopologicalOrderingResult sorted = algorithm.sort(graph);
-            // Result output
-            if (sorted.getType() == TopologicalOrdering.TopologicalOrderingResult.TYPE.ORDER) {
-                File target = new File(targetPath);
-                if (target.isDirectory()) {
-                    target = new File(target, "target.txt");
+            // Read files and requirements, or load them from a snapshot if nothing has changed
+            String snapshotFile = arguments.getOption("snapshot");
+            List<String> entries = arguments.getOptionValues("entry");
+            if (!entries.isEmpty() && snapshotFile != null) {
+                throw new IllegalArgumentException("Options --entry and --snapshot cannot be used together.");
+            }
+            if (arguments.hasOption("dedupe") && snapshotFile != null) {
+                // A snapshot tracks changes of the files in its graph only, not of their duplicates
+                throw new IllegalArgumentException("Options --dedupe and --snapshot cannot be used together.");
+            }
+            if (arguments.hasOption("io-concurrency") && arguments.hasOption("io-schedule")) {
+                throw new IllegalArgumentException("Options --io-concurrency and --io-schedule cannot be used together.");
+            }
+            for (String fixed: Arrays.asList("threads", "io-concurrency", "io-schedule")) {
+                if (arguments.hasOption("adaptive-concurrency") && arguments.hasOption(fixed)) {
+                    throw new IllegalArgumentException(String.format("Options --adaptive-concurrency and --%s cannot be used together.", fixed));
                 }
-                try (FileOutputStream targetStream = new FileOutputStream(target, false)) {
-                    for (String sourcePath: sorted.getResult()) {
-                        Files.copy(Paths.get(sourcePath), targetStream);
+            }
+            String linkOption = arguments.getOption("links");
+            DependencyReader.LinkPolicy links = linkOption == null ? DependencyReader.LinkPolicy.FOLLOW : DependencyReader.LinkPolicy.parse(linkOption);
+            DirectedGraph graph = null;
+            Map<String, Set<String>> dependencies = null;
+            if (snapshotFile != null) {
+                graph = loadSnapshot(snapshotFile, path, links);
+            }
+            if (graph == null) {
+                // Without --threads, the graph is read with the I/O concurrency
+                String threadOption = arguments.hasOption("threads") ? "threads" : "io-concurrency";
+                String threads = arguments.getOption(threadOption);
+                String workers = arguments.getOption("workers");
+                boolean dedupe = arguments.hasOption("dedupe");
+                if (!entries.isEmpty()) {
+                    dependencies = DependencyReader.getClosureDependencyMap(path, entries, true);
+                } else if (workers != null) {
+                    graph = scanSharded(path, parseNumber("workers", workers), links);
+                } else if (arguments.hasOption("adaptive-concurrency")) {
+                    AdaptiveConcurrency concurrency = adaptiveConcurrency(arguments);
+                    graph = DependencyReader.getDependencyGraph(path, true, concurrency, false, links, dedupe);
+                    dedupe = false;
+                    printConcurrency("Scan", concurrency, "files");
+                } else if (threads != null) {
+                    graph = DependencyReader.getDependencyGraph(path, true, parseNumber(threadOption, threads), arguments.hasOption("io-schedule"), links, dedupe);
+                    dedupe = false;
+                } else {
+                    dependencies = DependencyReader.getDependencyMap(path, true, arguments.hasOption("io-schedule"), links, dedupe);
+                    dedupe = false;
+                }
+                if (dedupe) {
+                    // The files have been read by a scan that doesn't deduplicate, so their nodes are merged afterwards
+                    if (graph == null) {
+                        graph = DirectedGraph.createFromAdjacencyList(dependencies);
+                        dependencies = null;
+                    }
+                    int merged = DependencyReader.mergeDuplicates(graph, threads != null ? parseNumber(threadOption, threads)
+                                                                                       : Runtime.getRuntime().availableProcessors());
+                    System.out.printf("Merged %d files with duplicate contents.%n", merged);
+                }
+                if (arguments.hasOption("io-stats")) {
+                    printScanStats(graph != null ? graph.getNodeIds() : dependencies.keySet());
+                }
+                if (snapshotFile != null && (graph != null ? !graph.isEmpty() : !dependencies.isEmpty())) {
+                    if (graph == null) {
+                        graph = DirectedGraph.createFromAdjacencyList(dependencies);
                     }
+                    saveSnapshot(snapshotFile, path, graph, links);
+                }
+            }
+            if (graph != null ? graph.isEmpty() : dependencies.isEmpty()) {
+                System.out.println("There is no files in the given directory, nothing to write");
+                return;
+            }
+            // Answer dependency queries instead of writing the result
+            if (QUERIES.stream().anyMatch(arguments::hasOption)) {
+                answerQueries(arguments, path, graph != null ? graph : DirectedGraph.createFromAdjacencyList(dependencies));
+                return;
+            }
+            // Write the graph report instead of the result
+            String reportFile = arguments.getOption("report");
+            if (reportFile != null) {
+                String top = arguments.getOption("report-top");
+                GraphAnalytics analytics = GraphAnalytics.analyze(graph != null ? graph : DirectedGraph.createFromAdjacencyList(dependencies),
+                                                                  top == null ? 10 : parseNumber("report-top", top));
+                try {
+                    AnalyticsReport.write(analytics, Paths.get(reportFile));
                 } catch (IOException ex) {
-                    System.out.printf("File %s cannot be open or created.", target.getPath());
+                    System.out.printf("Report file %s cannot be written.%n", reportFile);
+                }
+                return;
+            }
+            // Remove or report redundant requirements
+            String redundantReport = arguments.getOption("redundant-report");
+            if (arguments.hasOption("reduce") || redundantReport != null) {
+                if (graph == null) {
+                    graph = DirectedGraph.createFromAdjacencyList(dependencies);
+                    dependencies = null;
+                }
+                List<Map.Entry<String, String>> redundant = arguments.hasOption("reduce") ? TransitiveReduction.reduce(graph)
+                                                                                          : TransitiveReduction.findRedundantArcs(graph);
+                if (redundantReport != null) {
+                    writeRedundantReport(redundantReport, path, redundant);
                 }
-            } else if (sorted.getType() == TopologicalOrdering.TopologicalOrderingResult.TYPE.CYCLE) {
-                System.out.println("A cycle was detected in the dependency graph:");
-                System.out.println(String.join(" <- ", sorted.getResult()));
             }
-        } catch (ArrayIndexOutOfBoundsException ex) {
-            System.err.println("A mandatory argument 'path' was not provided.");
+            // Sort files
+            if (graph == null) {
+                graph = DirectedGraph.createFromAdjacencyList(dependencies);
+            }
+            writeResult(algorithm.sort(graph), targetPath, arguments);
         } catch (IllegalArgumentException ex) {
             System.out.println(ex.getMessage());
         }
     }
 
+    /**
+     * Builds the graph file with external sorting, sorts it and writes the result. Temporary files are created in the directory.
+     * With {@code boundedSort}, the sorting itself uses bounded memory too, see {@link TopologicalOrdering#sortExternal},
+     * otherwise only the nodes ready to be inserted are kept on the heap, see {@link TopologicalOrdering#sortMapped}.
+     * Arcs of the graph go from a file to the files requiring it.
+     */
+    private static void sortExternally(String path, String targetPath, Path directory, int bufferSize, boolean boundedSort,
+                                       Arguments arguments) {
+        String graphFile = arguments.getOption("graph-file");
+        Path file = null;
+        try {
+            file = graphFile != null ? Paths.get(graphFile) : Files.createTempFile(directory, "graph", ".bin");
+            MappedGraph mappedGraph;
+            try (ExternalGraphBuilder builder = new ExternalGraphBuilder(directory, bufferSize)) {
+                DependencyReader.scanDependencies(path, true, builder);
+                mappedGraph = builder.build(file);
+            }
+            // The graph must stay open until the result is written
+            try (MappedGraph graph = mappedGraph) {
+                if (graph.isEmpty()) {
+                    System.out.println("There is no files in the given directory, nothing to write");
+                    return;
+                }
+                writeResult(boundedSort ? algorithm.sortExternal(graph, directory, bufferSize) : algorithm.sortMapped(graph), targetPath, arguments);
+            }
+        } catch (IOException ex) {
+            if (graphFile != null && !boundedSort) {
+                System.out.printf("Graph file %s cannot be created.%n", graphFile);
+                return;
+            }
+            System.out.printf("Temporary files cannot be written to %s.%n", directory);
+        } finally {
+            if (graphFile == null && file != null) {
+                file.toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * Prints answers to all queries given in the arguments. Arcs of the graph go from a file to the files requiring it.
+     */
+    private static void answerQueries(Arguments arguments, String path, DirectedGraph graph) {
+        ReachabilityIndex index = null;
+        if (arguments.hasOption("reachability-index")) {
+            index = new ReachabilityIndex(graph);
+        }
+        for (String file: arguments.getOptionValues("dependents")) {
+            String id = DependencyReader.resolvePath(path, file);
+            List<String> dependents = index != null ? index.findReachable(id, true) : GraphQueries.findReachable(graph, id, true);
+            printQueryResult(String.format("Files depending on %s:", id), dependents);
+        }
+        for (String file: arguments.getOptionValues("dependencies")) {
+            String id = DependencyReader.resolvePath(path, file);
+            List<String> dependencies = index != null ? index.findReachable(id, false) : GraphQueries.findReachable(graph, id, false);
+            printQueryResult(String.format("Files required by %s:", id), dependencies);
+        }
+        List<String> pairs = arguments.getOptionValues("path-between");
+        for (int i = 0; i < pairs.size(); i += 2) {
+            String from = DependencyReader.resolvePath(path, pairs.get(i));
+            String to = DependencyReader.resolvePath(path, pairs.get(i + 1));
+            // A requiring file is the target of an arc, so the path is searched from the required file
+            List<String> chain = index == null || index.reaches(to, from) ? GraphQueries.findPath(graph, to, from) : Collections.emptyList();
+            if (chain.isEmpty()) {
+                System.out.printf("%s does not depend on %s.%n", from, to);
+            } else {
+                System.out.printf("%s depends on %s:%n", from, to);
+                System.out.println(String.join(" <- ", chain));
+            }
+        }
+    }
+
+    /**
+     * Writes redundant requirements as "file: require 'path'" lines, paths in directives are relative to the root directory.
+     * Arcs of the graph go from a required file to the requiring one.
+     */
+    private static void writeRedundantReport(String reportFile, String path, List<Map.Entry<String, String>> redundant) {
+        Path root = Paths.get(path).toAbsolutePath();
+        List<String> lines = new ArrayList<>(redundant.size());
+        for (Map.Entry<String, String> arc: redundant) {
+            lines.add(String.format("%s: require '%s'", arc.getValue(), root.relativize(Paths.get(arc.getKey()))));
+        }
+        Collections.sort(lines);
+        try {
+            Files.write(Paths.get(reportFile), lines, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            System.out.printf("Report file %s cannot be written.%n", reportFile);
+        }
+    }
+
+    private static void printQueryResult(String title, List<String> ids) {
+        System.out.println(title);
+        ids.stream().sorted().forEach(id -> System.out.println("  " + id));
+    }
+
+    private static int parseNumber(String option, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(String.format("Option --%s requires a number, but %s was given.", option, value));
+        }
+    }
+
+    /**
+     * Parses a number of bytes with an optional suffix K, M or G (powers of 1024).
+     */
+    private static long parseSize(String option, String value) {
+        int shift = 0;
+        String digits = value;
+        if (!value.isEmpty()) {
+            int suffix = "KMG".indexOf(Character.toUpperCase(value.charAt(value.length() - 1)));
+            if (suffix >= 0) {
+                shift = 10 * (suffix + 1);
+                digits = value.substring(0, value.length() - 1);
+            }
+        }
+        try {
+            return Long.parseLong(digits) << shift;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(String.format("Option --%s requires a size like 512M, but %s was given.", option, value));
+        }
+    }
+
+    /**
+     * Reads dependencies with worker processes, falls back to reading them in this process if the workers fail.
+     */
+    private static DirectedGraph scanSharded(String path, int workers, DependencyReader.LinkPolicy links) {
+        try {
+            return ShardedScan.getDependencyGraph(path, true, workers, links);
+        } catch (IOException ex) {
+            System.out.printf("Scan with worker processes failed (%s), the directory will be scanned in one process.%n", ex.getMessage());
+            return DirectedGraph.createFromAdjacencyList(DependencyReader.getDependencyMap(path, true, false, links));
+        }
+    }
+
+    private static DirectedGraph loadSnapshot(String snapshotFile, String path, DependencyReader.LinkPolicy links) {
+        try {
+            return DependencySnapshot.load(Paths.get(snapshotFile), path, links);
+        } catch (IOException ex) {
+            System.out.printf("Snapshot %s cannot be read, the directory will be scanned again.%n", snapshotFile);
+            return null;
+        }
+    }
+
+    private static void saveSnapshot(String snapshotFile, String path, DirectedGraph graph, DependencyReader.LinkPolicy links) {
+        try {
+            DependencySnapshot.save(Paths.get(snapshotFile), path, graph, links);
+        } catch (IOException ex) {
+            System.out.printf("Snapshot %s cannot be written.%n", snapshotFile);
+        }
+    }
+
+    /**
+     * Creates a controller with the bounds given by --adaptive-concurrency, each stage gets its own one.
+     */
+    private static AdaptiveConcurrency adaptiveConcurrency(Arguments arguments) {
+        List<String> bounds = arguments.getOptionValues("adaptive-concurrency");
+        return new AdaptiveConcurrency(parseNumber("adaptive-concurrency", bounds.get(0)), parseNumber("adaptive-concurrency", bounds.get(1)));
+    }
+
+    private static void printConcurrency(String stage, AdaptiveConcurrency concurrency, String units) {
+        System.out.printf("%s: concurrency settled at %d (average %.1f, bounds %d..%d) after %d files, last throughput %.0f %s/s.%n",
+                          stage, concurrency.getLimit(), concurrency.getAverageLimit(), concurrency.getMinimum(), concurrency.getMaximum(),
+                          concurrency.getOperations(), concurrency.getThroughput(), units);
+    }
+
+    /**
+     * Prints the number of seeks estimated from inode numbers (see {@link ReadScheduler#estimateSeeks}) for reading
+     * the scanned files in directory listing order and in inode order. Nothing is measured: the files are taken from
+     * the scan result instead of walking the tree again, but their inode numbers are read once more.
+     */
+    private static void printScanStats(Collection<String> scanned) {
+        List<String> ids = new ArrayList<>(scanned);
+        ids.sort(FileIdentity.TRAVERSAL_ORDER);
+        List<Path> files = new ArrayList<>(ids.size());
+        for (String file: ids) {
+            files.add(Paths.get(file));
+        }
+        System.out.printf("Scan: %d files, seek estimate from inode numbers (not measured): %d in directory order, %d in inode order.%n",
+                          files.size(), ReadScheduler.estimateSeeks(files), ReadScheduler.estimateSeeks(ReadScheduler.sortByInode(files, p -> p)));
+    }
+
+    private static void writeResult(TopologicalOrdering.TopologicalOrderingResult sorted, String targetPath, Arguments arguments) {
+        if (sorted.getType() == TopologicalOrdering.TopologicalOrderingResult.TYPE.ORDER) {
+            if (STDOUT.equals(targetPath)) {
+                try {
+                    writeSink(sorted.getResult(), compressed(OutputSink.toStdout(), arguments), arguments);
+                } catch (ZipException ex) {
+                    System.out.println(ex.getMessage());
+                } catch (IOException ex) {
+                    System.out.println("The standard output cannot be written.");
+                }
+                return;
+            }
+            File target = new File(targetPath);
+            if (target.isDirectory()) {
+                target = new File(target, "target.txt");
+            }
+            if (arguments.hasOption("shard-size") || arguments.hasOption("shard-files")) {
+                writeShards(sorted.getResult(), target.toPath(), arguments);
+                return;
+            }
+            try {
+                writeTarget(sorted.getResult(), target.toPath(), arguments);
+            } catch (ZipException ex) {
+                // A compressed source cannot be decompressed
+                System.out.println(ex.getMessage());
+            } catch (IOException ex) {
+                System.out.printf("File %s cannot be open or created.", target.getPath());
+            }
+        } else if (sorted.getType() == TopologicalOrdering.TopologicalOrderingResult.TYPE.CYCLE) {
+            System.out.println("A cycle was detected in the dependency graph:");
+            System.out.println(String.join(" <- ", sorted.getResult()));
+        }
+    }
+
+    /**
+     * Writes the files into numbered shards next to the target, see {@link ShardWriter}.
+     */
+    private static void writeShards(List<String> files, Path target, Arguments arguments) {
+        for (String option: Arrays.asList("compress", "resume", "incremental", "skip-unchanged")) {
+            if (arguments.hasOption(option)) {
+                throw new IllegalArgumentException(String.format("Option --%s cannot be used with --shard-size and --shard-files.", option));
+            }
+        }
+        String size = arguments.getOption("shard-size");
+        String count = arguments.getOption("shard-files");
+        try {
+            int shards = ShardWriter.write(files, target, size == null ? 0 : parseSize("shard-size", size), count == null ? 0 : parseNumber("shard-files", count),
+                                           Runtime.getRuntime().availableProcessors());
+            System.out.printf("%d files were written into %d shards, see %s.%n", files.size(), shards, ShardWriter.indexPath(target));
+        } catch (ZipException ex) {
+            System.out.println(ex.getMessage());
+        } catch (IOException ex) {
+            System.out.printf("Shards of %s cannot be written.%n", target);
+        }
+    }
+
+    /**
+     * Writes the files into the target. With --skip-unchanged, writing is skipped if the sources and the target
+     * haven't changed since the previous run; the sources have already been read by the scan unless --snapshot gave the graph. A compressed target is always written from the beginning.
+     */
+    private static void writeTarget(List<String> files, Path target, Arguments arguments) throws IOException {
+        boolean compress = arguments.hasOption("compress");
+        if (compress && (arguments.hasOption("resume") || arguments.hasOption("incremental"))) {
+            throw new IllegalArgumentException("Options --resume and --incremental cannot be used with --compress.");
+        }
+        // A named pipe or a device can only be written as a stream
+        boolean stream = compress || Files.exists(target) && !Files.isRegularFile(target);
+        Path fingerprintFile = target.resolveSibling(target.getFileName() + ".fp");
+        Fingerprint fingerprint = null;
+        if (arguments.hasOption("skip-unchanged")) {
+            fingerprint = Fingerprint.compute(files, outputOptions(arguments), arguments.hasOption("strict-fingerprint"),
+                                              Runtime.getRuntime().availableProcessors());
+            Fingerprint previous = loadFingerprint(fingerprintFile);
+            if (previous != null && previous.isUpToDate(fingerprint, target)) {
+                System.out.printf("Target %s is up to date, nothing to write.%n", target);
+                return;
+            }
+        }
+        if (stream) {
+            writeSink(files, compressed(OutputSink.toFile(target, 0), arguments), arguments);
+        } else {
+            writeFile(files, target, arguments);
+        }
+        if (fingerprint != null) {
+            fingerprint.save(fingerprintFile, target);
+        }
+    }
+
+    /**
+     * @return given output options with their values, e.g. "--compress=gzip", empty for a plain target
+     */
+    private static String outputOptions(Arguments arguments) {
+        List<String> options = new ArrayList<>();
+        for (String option: OUTPUT_OPTIONS) {
+            if (arguments.hasOption(option)) {
+                options.add(String.format("--%s=%s", option, String.join(",", arguments.getOptionValues(option))));
+            }
+        }
+        return String.join(" ", options);
+    }
+
+    /**
+     * Concatenates the files into the sink and closes it.
+     */
+    private static void writeSink(List<String> files, OutputSink sink, Arguments arguments) throws IOException {
+        try (OutputSink out = sink) {
+            concatenate(files, 0, out.getStream(), index -> { }, arguments);
+        }
+    }
+
+    /**
+     * Concatenates the files into the target, saving a checkpoint next to it after every {@link #CHECKPOINT_INTERVAL} bytes.
+     * With --resume, a matching checkpoint is used to truncate the target to the last saved offset and continue from there.
+     * The checkpoint is removed when the target is complete.
+     * With --incremental, an offset table is saved next to the target, and the next run rewrites the target only
+     * from the first source that has moved or changed.
+     */
+    private static void writeFile(List<String> files, Path target, Arguments arguments) throws IOException {
+        Path checkpointFile = target.resolveSibling(target.getFileName() + ".ckpt");
+        byte[] orderHash = Checkpoint.orderHash(files);
+        int start = 0;
+        long offset = 0;
+        if (arguments.hasOption("resume")) {
+            Checkpoint checkpoint = loadCheckpoint(checkpointFile);
+            if (checkpoint != null && checkpoint.matches(orderHash) && Files.isRegularFile(target) && Files.size(target) >= checkpoint.getOffset()) {
+                start = checkpoint.getCompleted();
+                offset = checkpoint.getOffset();
+                System.out.printf("Resuming after %d of %d files.%n", start, files.size());
+            } else {
+                System.out.println("There is no matching checkpoint, the target will be written from the beginning.");
+            }
+        }
+        // Keep the unchanged prefix of the target written by the previous run
+        Path tableFile = target.resolveSibling(target.getFileName() + ".idx");
+        OffsetTable table = null;
+        if (arguments.hasOption("incremental") && start == 0) {
+            table = loadOffsetTable(tableFile);
+            if (table != null) {
+                start = table.unchangedPrefix(files, target);
+                offset = table.offsetAfter(start);
+                System.out.printf("Keeping %d of %d files, rewriting from byte %d.%n", start, files.size(), offset);
+            }
+        }
+        // End offset of each source in the target; sources of a kept prefix are unchanged, so the table
+        // or their exact (decompressed) sizes give the offsets
+        long[] ends = new long[files.size()];
+        for (int i = 0; i < start; i++) {
+            ends[i] = table != null ? table.offsetAfter(i + 1) : (i == 0 ? 0 : ends[i - 1]) + SourceFiles.size(Paths.get(files.get(i)));
+        }
+        try (OutputSink.FileSink sink = OutputSink.toFile(target, offset)) {
+            FileChannel channel = sink.getChannel();
+            long[] saved = {offset};
+            Concatenator.Progress progress = index -> {
+                ends[index] = channel.position();
+                if (channel.position() - saved[0] >= CHECKPOINT_INTERVAL) {
+                    // Written data must reach the disk before the checkpoint refers to it
+                    channel.force(false);
+                    saved[0] = channel.position();
+                    new Checkpoint(orderHash, index + 1, saved[0]).save(checkpointFile);
+                }
+            };
+            concatenate(files, start, sink.getStream(), progress, arguments);
+        }
+        Files.deleteIfExists(checkpointFile);
+        if (arguments.hasOption("incremental")) {
+            OffsetTable.save(tableFile, files, ends, target);
+        }
+    }
+
+    private static void concatenate(List<String> files, int start, OutputStream out, Concatenator.Progress progress,
+                                    Arguments arguments) throws IOException {
+        if (arguments.hasOption("io-schedule")) {
+            List<Path> readOrder = Concatenator.concatenateScheduled(files, start, out, SCHEDULE_WINDOW_FILES, SCHEDULE_WINDOW_BYTES, progress);
+            if (arguments.hasOption("io-stats")) {
+                List<Path> logicalOrder = new ArrayList<>(readOrder.size());
+                for (String file: files.subList(start, files.size())) {
+                    logicalOrder.add(Paths.get(file));
+                }
+                System.out.printf("Concatenation: seek estimate from inode numbers (not measured): %d in output order, %d in scheduled order.%n",
+                                  ReadScheduler.estimateSeeks(logicalOrder), ReadScheduler.estimateSeeks(readOrder));
+            }
+        } else if (arguments.hasOption("adaptive-concurrency")) {
+            AdaptiveConcurrency concurrency = adaptiveConcurrency(arguments);
+            ExecutorService executor = IoExecutors.newExecutor(concurrency.getMaximum());
+            try {
+                Concatenator.concatenateConcurrent(files, start, out, concurrency.getMaximum(), SCHEDULE_WINDOW_BYTES, executor, concurrency, progress);
+            } finally {
+                executor.shutdownNow();
+            }
+            printConcurrency("Concatenation", concurrency, "bytes");
+        } else if (arguments.hasOption("io-concurrency")) {
+            int concurrency = parseNumber("io-concurrency", arguments.getOption("io-concurrency"));
+            ExecutorService executor = IoExecutors.newExecutor(concurrency);
+            try {
+                Concatenator.concatenateConcurrent(files, start, out, concurrency, SCHEDULE_WINDOW_BYTES, executor, progress);
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            Concatenator.concatenate(files, start, out, progress);
+        }
+    }
+
+    /**
+     * Wraps the sink into a compressing one if --compress is given.
+     */
+    private static OutputSink compressed(OutputSink sink, Arguments arguments) throws IOException {
+        String compression = arguments.getOption("compress");
+        if (compression == null) return sink;
+        String threads = arguments.getOption("compress-threads");
+        try {
+            return OutputSink.compress(sink, OutputSink.Compression.parse(compression),
+                                       threads == null ? Runtime.getRuntime().availableProcessors() : parseNumber("compress-threads", threads));
+        } catch (RuntimeException | IOException ex) {
+            sink.close();
+            throw ex;
+        }
+    }
+
+    private static OffsetTable loadOffsetTable(Path tableFile) {
+        try {
+            return OffsetTable.load(tableFile);
+        } catch (IOException ex) {
+            System.out.printf("Offset table %s cannot be read, the target will be written from the beginning.%n", tableFile);
+            return null;
+        }
+    }
+
+    private static Fingerprint loadFingerprint(Path fingerprintFile) {
+        try {
+            return Fingerprint.load(fingerprintFile);
+        } catch (IOException ex) {
+            System.out.printf("Fingerprint %s cannot be read, the target will be written.%n", fingerprintFile);
+            return null;
+        }
+    }
+
+    private static Checkpoint loadCheckpoint(Path checkpointFile) {
+        try {
+            return Checkpoint.load(checkpointFile);
+        } catch (IOException ex) {
+            System.out.printf("Checkpoint %s cannot be read.%n", checkpointFile);
+            return null;
+        }
+    }
+
     private static String extractFileName(DirectedGraph.Node node) {
         return new File(node.getId()).getName();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package org.natalya_me;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table of sources of a concatenation result with their sizes, modification times and end offsets in the target,
+ * saved next to the target. On the next run, the sources that have kept their positions and haven't changed
+ * make an unchanged prefix of the target, and only the rest of the target has to be rewritten.
+ * A source is considered unchanged if its size and modification time are the same.
+ * <p>
+ * Format: magic and version ints, target size and modification time (longs), number of sources (int),
+ * then path (UTF), size, modification time and end offset (longs) for each source.
+ */
+public class OffsetTable {
+
+    private static final int MAGIC = 0x4653494F;
+    private static final int VERSION = 1;
+
+    private final List<String> files;
+    private final long[] sizes;
+    private final long[] modified;
+    private final long[] ends;
+    private final long targetSize;
+    private final long targetModified;
+
+    private OffsetTable(List<String> files, long[] sizes, long[] modified, long[] ends, long targetSize, long targetModified) {
+        this.files = files;
+        this.sizes = sizes;
+        this.modified = modified;
+        this.ends = ends;
+        this.targetSize = targetSize;
+        this.targetModified = targetModified;
+    }
+
+    /**
+     * Saves the table of a written target. Sizes and modification times of the sources and the target are read now.
+     *
+     * @param file   table file path
+     * @param files  source file paths in the order of concatenation
+     * @param ends   offset in the target after each source
+     * @param target written target
+     * @throws IOException if the table cannot be written or the target doesn't exist
+     */
+    public static void save(Path file, List<String> files, long[] ends, Path target) throws IOException {
+        if (ends.length != files.size()) {
+            throw new IllegalArgumentException("There must be one end offset for each file.");
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(Files.size(target));
+            out.writeLong(Files.getLastModifiedTime(target).toMillis());
+            out.writeInt(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                File source = new File(files.get(i));
+                out.writeUTF(files.get(i));
+                out.writeLong(source.length());
+                out.writeLong(source.lastModified());
+                out.writeLong(ends[i]);
+            }
+        }
+    }
+
+    /**
+     * Loads a table.
+     *
+     * @param file table file path
+     * @return the table, or null if there is no such file
+     * @throws IOException if the file cannot be read or is not an offset table
+     */
+    public static OffsetTable load(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an offset table: wrong magic number.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported offset table version %d.", version));
+            }
+            long targetSize = in.readLong();
+            long targetModified = in.readLong();
+            int count = in.readInt();
+            List<String> files = new ArrayList<>(count);
+            long[] sizes = new long[count];
+            long[] modified = new long[count];
+            long[] ends = new long[count];
+            for (int i = 0; i < count; i++) {
+                files.add(in.readUTF());
+                sizes[i] = in.readLong();
+                modified[i] = in.readLong();
+                ends[i] = in.readLong();
+            }
+            return new OffsetTable(files, sizes, modified, ends, targetSize, targetModified);
+        }
+    }
+
+    /**
+     * Finds the number of leading sources that are at the same positions and haven't changed.
+     *
+     * @param files  source file paths in the new order of concatenation
+     * @param target target path
+     * @return length of the unchanged prefix, 0 if the target has changed since the table was saved
+     */
+    public int unchangedPrefix(List<String> files, Path target) {
+        try {
+            if (!Files.isRegularFile(target) || Files.size(target) != targetSize
+                    || Files.getLastModifiedTime(target).toMillis() != targetModified) {
+                return 0;
+            }
+        } catch (IOException ex) {
+            return 0;
+        }
+        int count = Math.min(files.size(), this.files.size());
+        for (int i = 0; i < count; i++) {
+            File source = new File(files.get(i));
+            if (!files.get(i).equals(this.files.get(i)) || source.length() != sizes[i] || source.lastModified() != modified[i]) {
+                return i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param count number of leading sources
+     * @return offset in the target after the sources
+     */
+    public long offsetAfter(int count) {
+        return count == 0 ? 0 : ends[count - 1];
+    }
+}
@@ -0,0 +1,192 @@
+package org.natalya_me;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Destination of a concatenation result: a file, the standard output, or a compressing wrapper around another sink.
+ * Closing a sink finishes compression and releases the destination.
+ */
+public abstract class OutputSink implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Supported compression formats.
+     */
+    public enum Compression {
+        /** gzip format compressed by one thread */
+        GZIP,
+        /** zlib format (deflate with a header and a checksum) */
+        DEFLATE,
+        /** gzip format compressed by several threads, see {@link ParallelGzipOutputStream} */
+        PARALLEL_GZIP;
+
+        /**
+         * @param name compression name: gzip, deflate or parallel-gzip
+         * @return compression format
+         * @throws IllegalArgumentException if the name is unknown
+         */
+        public static Compression parse(String name) {
+            for (Compression compression: values()) {
+                if (compression.name().replace('_', '-').equalsIgnoreCase(name)) {
+                    return compression;
+                }
+            }
+            throw new IllegalArgumentException(String.format("Unknown compression %s, expected gzip, deflate or parallel-gzip.", name));
+        }
+    }
+
+    /**
+     * @return stream accepting the result bytes, it must not be closed directly
+     */
+    public abstract OutputStream getStream();
+
+    /**
+     * Opens a file sink. A regular file is truncated to the given offset and written from there,
+     * which allows continuing a partially written file. Other files (e.g. named pipes) are written from the beginning.
+     *
+     * @param file   file path, created if it doesn't exist
+     * @param offset number of leading bytes of the file to keep
+     * @return an opened sink
+     * @throws IOException if the file cannot be opened
+     */
+    public static FileSink toFile(Path file, long offset) throws IOException {
+        return new FileSink(file, offset);
+    }
+
+    /**
+     * Opens a sink writing to the standard output of the process. Closing the sink flushes the output, but doesn't close it.
+     *
+     * @return an opened sink
+     */
+    public static OutputSink toStdout() {
+        OutputStream stdout = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER_SIZE);
+        return new StreamSink(new FilterOutputStream(stdout) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Wraps the sink into a compressing one.
+     *
+     * @param sink        destination of compressed data, it is closed together with the new sink
+     * @param compression compression format
+     * @param threads     number of compressing threads for {@link Compression#PARALLEL_GZIP}
+     * @return a compressing sink
+     * @throws IOException if a compression header cannot be written
+     */
+    public static OutputSink compress(OutputSink sink, Compression compression, int threads) throws IOException {
+        OutputStream out = new FilterOutputStream(sink.getStream()) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                sink.close();
+            }
+        };
+        switch (compression) {
+            case GZIP:
+                return new StreamSink(new GZIPOutputStream(out, BUFFER_SIZE));
+            case DEFLATE:
+                return new StreamSink(new DeflaterOutputStream(out, new Deflater(), BUFFER_SIZE, false) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            def.end();
+                        }
+                    }
+                });
+            default:
+                return new StreamSink(new ParallelGzipOutputStream(out, threads));
+        }
+    }
+
+    /**
+     * Sink writing to a file through a channel. The channel is available for positioning and forcing data to the disk.
+     */
+    public static class FileSink extends OutputSink {
+
+        private final FileChannel channel;
+        private final OutputStream stream;
+
+        private FileSink(Path file, long offset) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                // A named pipe or a device is neither truncated nor positioned
+                if (Files.isRegularFile(file)) {
+                    channel.truncate(offset);
+                    channel.position(offset);
+                } else if (offset > 0) {
+                    throw new IOException(String.format("File %s is not a regular file and cannot be written from offset %d.", file, offset));
+                }
+            } catch (IOException ex) {
+                channel.close();
+                throw ex;
+            }
+            stream = Channels.newOutputStream(channel);
+        }
+
+        /**
+         * @return channel of the file, its position is the current end of the written data
+         */
+        public FileChannel getChannel() {
+            return channel;
+        }
+
+        @Override
+        public OutputStream getStream() {
+            return stream;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static class StreamSink extends OutputSink {
+
+        private final OutputStream stream;
+
+        private StreamSink(OutputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public OutputStream getStream() {
+            return stream;
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+}
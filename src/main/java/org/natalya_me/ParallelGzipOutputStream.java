@@ -0,0 +1,137 @@
+package org.natalya_me;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Output stream compressing data with several threads into gzip format.
+ * Data is split into blocks, each block is compressed independently into a separate gzip member, and the members
+ * are written in the order of blocks. A sequence of gzip members is a valid gzip stream: gzip, zcat and
+ * {@link java.util.zip.GZIPInputStream} decompress it as a whole. Compression ratio is slightly worse than the one
+ * of a single member, because blocks don't share their dictionaries.
+ * <p>
+ * At most two blocks per thread are kept in memory. The stream is not thread safe.
+ */
+class ParallelGzipOutputStream extends OutputStream {
+
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int length;
+    private boolean empty = true;
+    private boolean closed;
+
+    /**
+     * @param out     destination of compressed data, it is closed together with this stream
+     * @param threads number of compressing threads
+     */
+    ParallelGzipOutputStream(OutputStream out, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        }
+        this.out = out;
+        this.maxPending = 2 * threads;
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "gzip");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[length++] = (byte) b;
+        if (length == BLOCK_SIZE) {
+            submit();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int count = Math.min(len, BLOCK_SIZE - length);
+            System.arraycopy(b, off, block, length, count);
+            length += count;
+            off += count;
+            len -= count;
+            if (length == BLOCK_SIZE) {
+                submit();
+            }
+        }
+    }
+
+    /**
+     * Compresses buffered data as a shorter block and writes all compressed blocks.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (length > 0) {
+            submit();
+        }
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            // An empty input still has to be a valid gzip stream
+            if (length > 0 || empty) {
+                submit();
+            }
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+        } finally {
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submit() throws IOException {
+        byte[] data = block;
+        int size = length;
+        block = new byte[BLOCK_SIZE];
+        length = 0;
+        empty = false;
+        pending.add(executor.submit(() -> compress(data, size)));
+        while (pending.size() > maxPending) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            out.write(pending.poll().get());
+        } catch (ExecutionException ex) {
+            throw new IOException("Compression failed.", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Compression was interrupted.", ex);
+        }
+    }
+
+    private static byte[] compress(byte[] data, int size) throws IOException {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(size / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(member, 1 << 16)) {
+            gzip.write(data, 0, size);
+        }
+        return member.toByteArray();
+    }
+}
@@ -0,0 +1,239 @@
+package org.natalya_me;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Sorted index of the files of a directory tree by their paths relative to the root, used to expand require directives
+ * naming several files at once:
+ * <ul>
+ * <li>a glob pattern, e.g. {@code lib/**}{@code /*.txt}, where {@code *} and {@code ?} match within a path element,
+ *     {@code **} matches across elements (the example matches {@code lib/a.txt} as well),
+ *     {@code [abc]} matches one of the characters ({@code [!abc]} any other one) and {@code {a,b}} one of the alternatives;</li>
+ * <li>a directory, which stands for all files under it.</li>
+ * </ul>
+ * Only the index range sharing the literal prefix of a pattern (the part before the first special character) is
+ * matched, and the expansion of each directive is cached, so files requiring the same pattern share a single expansion.
+ * <p>
+ * The class is thread safe.
+ */
+class PathIndex {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private final String rootPath;
+    private final Supplier<List<File>> walk;
+    private volatile String[] relativePaths;
+    private volatile File[] files;
+    // Expansion of each directive
+    private final Map<String, List<File>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an index of the files found by a traversal, it is built when a directive is expanded for the first time.
+     *
+     * @param rootFile root directory, directives are resolved against it
+     * @param walk     traversal of the directory tree, returning its files
+     */
+    PathIndex(File rootFile, Supplier<List<File>> walk) {
+        this.rootPath = rootFile.getAbsolutePath();
+        this.walk = walk;
+    }
+
+    /**
+     * @param requirement path from a require directive
+     * @return true if the path is a glob pattern
+     */
+    static boolean isPattern(String requirement) {
+        for (int i = 0; i < requirement.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(requirement.charAt(i)) >= 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param requirement path from a require directive
+     * @return true if the path names the root directory, e.g. it is empty, "/" or "."
+     */
+    static boolean isRoot(String requirement) {
+        return normalize(requirement).isEmpty();
+    }
+
+    /**
+     * Expands a glob pattern or a directory from a require directive.
+     *
+     * @param requirement glob pattern or directory path relative to the root
+     * @return matching files in the order of their paths
+     */
+    List<File> expand(String requirement) {
+        return cache.computeIfAbsent(requirement, this::match);
+    }
+
+    private List<File> match(String requirement) {
+        String pattern = normalize(requirement);
+        Pattern regex;
+        String prefix;
+        if (isPattern(pattern)) {
+            try {
+                regex = Pattern.compile(toRegex(pattern));
+            } catch (IllegalArgumentException ex) {
+                // Like an incorrect path, an incorrect pattern requires nothing
+                return Collections.emptyList();
+            }
+            int literal = 0;
+            while (GLOB_CHARACTERS.indexOf(pattern.charAt(literal)) < 0) {
+                literal++;
+            }
+            prefix = pattern.substring(0, literal);
+        } else {
+            // All files under the directory
+            regex = null;
+            prefix = pattern.isEmpty() ? "" : pattern + "/";
+        }
+        String[] paths = index();
+        List<File> result = new ArrayList<>();
+        for (int i = lowerBound(paths, prefix); i < paths.length && paths[i].startsWith(prefix); i++) {
+            if (regex == null || regex.matcher(paths[i]).matches()) {
+                result.add(files[i]);
+            }
+        }
+        return result.isEmpty() ? Collections.emptyList() : result;
+    }
+
+    private String[] index() {
+        if (relativePaths == null) {
+            synchronized (this) {
+                if (relativePaths == null) {
+                    List<File> walked = walk.get();
+                    String[] paths = new String[walked.size()];
+                    Integer[] order = new Integer[walked.size()];
+                    for (int i = 0; i < paths.length; i++) {
+                        paths[i] = relativePath(walked.get(i));
+                        order[i] = i;
+                    }
+                    Arrays.sort(order, (a, b) -> paths[a].compareTo(paths[b]));
+                    File[] sortedFiles = new File[order.length];
+                    String[] sortedPaths = new String[order.length];
+                    for (int i = 0; i < order.length; i++) {
+                        sortedFiles[i] = walked.get(order[i]);
+                        sortedPaths[i] = paths[order[i]];
+                    }
+                    files = sortedFiles;
+                    relativePaths = sortedPaths;
+                }
+            }
+        }
+        return relativePaths;
+    }
+
+    private String relativePath(File file) {
+        String path = file.getAbsolutePath();
+        if (path.startsWith(rootPath + File.separator)) {
+            path = path.substring(rootPath.length() + 1);
+        }
+        return path.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Drops empty and "." path elements, so leading "/" and "./" and trailing "/", which are allowed in directives,
+     * are dropped as well. The root directory becomes an empty path.
+     */
+    private static String normalize(String requirement) {
+        StringBuilder path = new StringBuilder();
+        for (String element: requirement.replace(File.separatorChar, '/').split("/")) {
+            if (element.isEmpty() || element.equals(".")) continue;
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(element);
+        }
+        return path.toString();
+    }
+
+    private static int lowerBound(String[] paths, String prefix) {
+        int low = 0;
+        int high = paths.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (paths[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Translates a glob pattern into a regular expression matching relative paths.
+     */
+    static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        boolean inGroup = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        i++;
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                            // "**/" matches no directory as well
+                            i++;
+                            regex.append("(?:.*/)?");
+                        } else {
+                            regex.append(".*");
+                        }
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[': {
+                    int end = glob.indexOf(']', i + 2);
+                    if (end < 0) {
+                        regex.append("\\[");
+                        break;
+                    }
+                    // Like "?", a set matches within a path element
+                    String set = glob.substring(i + 1, end);
+                    regex.append(set.startsWith("!") ? "[^/" + quoteSet(set.substring(1)) + "]" : "[" + quoteSet(set) + "&&[^/]]");
+                    i = end;
+                    break;
+                }
+                case '{':
+                    inGroup = true;
+                    regex.append("(?:");
+                    break;
+                case '}':
+                    if (inGroup) {
+                        inGroup = false;
+                        regex.append(')');
+                    } else {
+                        regex.append("\\}");
+                    }
+                    break;
+                case ',':
+                    regex.append(inGroup ? "|" : ",");
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        if (inGroup) {
+            throw new IllegalArgumentException("Unclosed group in pattern " + glob);
+        }
+        return regex.toString();
+    }
+
+    private static String quoteSet(String set) {
+        return set.replace("\\", "\\\\").replace("[", "\\[").replace("&", "\\&").replace("^", "\\^");
+    }
+}
@@ -0,0 +1,54 @@
+package org.natalya_me;
+
+import org.natalya_me.algorithm.DirectedGraph;
+import org.natalya_me.algorithm.GraphSnapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Entry point of a worker process started by {@link ShardedScan}.
+ * Reads requirements of the files in its subtrees and writes them as a graph fragment.
+ * <p>
+ * Arguments: root path, "true" or "false" for the arc direction (see {@link DependencyReader#getDependencyMap(String, boolean)}),
+ * a file with subtree paths (one per line, UTF-8), the fragment file path and optionally a link policy
+ * ({@link DependencyReader.LinkPolicy}, follow by default).
+ * The fragment is a {@link GraphSnapshot}. Its arcs may lead to files of other subtrees, such files are present in the
+ * fragment as nodes without requirements of their own; merging the fragments restores their requirements.
+ * The process exits with status 1 if the fragment cannot be written.
+ */
+public class ScanWorker {
+
+    private ScanWorker() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", ScanWorker.class.getName()));
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 4 && args.length != 5) {
+            System.err.println("Usage: ScanWorker <root path> <invert> <subtree list file> <fragment file> [<link policy>]");
+            System.exit(1);
+        }
+        try {
+            List<String> subtrees = Files.readAllLines(Paths.get(args[2]), StandardCharsets.UTF_8);
+            DependencyReader.LinkPolicy links = args.length == 5 ? DependencyReader.LinkPolicy.parse(args[4]) : DependencyReader.LinkPolicy.FOLLOW;
+            DirectedGraph fragment = DirectedGraph.createFromAdjacencyList(
+                    DependencyReader.getSubtreeDependencyMap(args[0], subtrees, Boolean.parseBoolean(args[1]), links));
+            writeFragment(Paths.get(args[3]), fragment);
+        } catch (IOException | RuntimeException ex) {
+            System.err.printf("Scan of %s failed: %s%n", args[2], ex);
+            System.exit(1);
+        }
+    }
+
+    static void writeFragment(Path file, DirectedGraph fragment) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            GraphSnapshot.write(fragment, out);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.natalya_me;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Utility class for concatenating sorted files into several numbered shards instead of one target.
+ * A shard is capped by a number of bytes and a number of files, its boundaries fall only between sources,
+ * so a source larger than the byte cap gets a shard of its own. Shards are written concurrently.
+ * <p>
+ * Shards of a target {@code target.txt} are named {@code target.txt.00000}, {@code target.txt.00001} and so on.
+ * The index {@code target.txt.index} has a line per source in the order of concatenation with tab-separated
+ * source path, shard file name, offset of the source in the shard and its length:
+ * <pre>
+ * /root/file3.txt	target.txt.00000	0	120
+ * /root/file2.txt	target.txt.00000	120	64
+ * /root/file1.txt	target.txt.00001	0	2048
+ * </pre>
+ */
+public class ShardWriter {
+
+    private ShardWriter() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", ShardWriter.class.getName()));
+    }
+
+    /**
+     * Writes the files into shards and the index.
+     *
+     * @param files    file paths in the order of concatenation
+     * @param target   target path, shards and the index are created next to it
+     * @param maxBytes maximum number of bytes in a shard, not positive for no limit
+     * @param maxFiles maximum number of files in a shard, not positive for no limit
+     * @param threads  number of shards written at the same time
+     * @return number of written shards
+     * @throws IOException if a file cannot be read or a shard or the index cannot be written
+     */
+    public static int write(List<String> files, Path target, long maxBytes, int maxFiles, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        }
+        List<Integer> starts = plan(files, maxBytes, maxFiles);
+        // End offset of each source in its shard
+        long[] ends = new long[files.size()];
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, starts.size())));
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int shard = 0; shard < starts.size(); shard++) {
+                int start = starts.get(shard);
+                int end = shard + 1 < starts.size() ? starts.get(shard + 1) : files.size();
+                Path shardFile = shardPath(target, shard);
+                futures.add(executor.submit(() -> {
+                    writeShard(files.subList(start, end), shardFile, ends, start);
+                    return null;
+                }));
+            }
+            for (Future<Void> future: futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Writing of shards was interrupted.", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+        // Shards left by a previous run with more shards would be mistaken for a part of the result
+        int stale = starts.size();
+        while (Files.deleteIfExists(shardPath(target, stale))) {
+            stale++;
+        }
+
+        try (Writer out = Files.newBufferedWriter(indexPath(target), StandardCharsets.UTF_8)) {
+            for (int shard = 0; shard < starts.size(); shard++) {
+                int start = starts.get(shard);
+                int end = shard + 1 < starts.size() ? starts.get(shard + 1) : files.size();
+                String shardName = shardPath(target, shard).getFileName().toString();
+                for (int i = start; i < end; i++) {
+                    long offset = i == start ? 0 : ends[i - 1];
+                    out.write(files.get(i) + '\t' + shardName + '\t' + offset + '\t' + (ends[i] - offset) + '\n');
+                }
+            }
+        }
+        return starts.size();
+    }
+
+    /**
+     * @param target target path
+     * @param shard  shard number
+     * @return path of the shard
+     */
+    public static Path shardPath(Path target, int shard) {
+        return target.resolveSibling(String.format("%s.%05d", target.getFileName(), shard));
+    }
+
+    /**
+     * @param target target path
+     * @return path of the index
+     */
+    public static Path indexPath(Path target) {
+        return target.resolveSibling(target.getFileName() + ".index");
+    }
+
+    /**
+     * Splits the files into shards by their current sizes, compressed files are decompressed to count their exact sizes.
+     *
+     * @return index of the first file of each shard; a single empty shard for no files
+     * @throws IOException if a size cannot be read
+     */
+    static List<Integer> plan(List<String> files, long maxBytes, int maxFiles) throws IOException {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        long bytes = 0;
+        int count = 0;
+        for (int i = 0; i < files.size(); i++) {
+            long size = SourceFiles.size(Paths.get(files.get(i)));
+            if (count > 0 && (maxBytes > 0 && bytes + size > maxBytes || maxFiles > 0 && count == maxFiles)) {
+                starts.add(i);
+                bytes = 0;
+                count = 0;
+            }
+            bytes += size;
+            count++;
+        }
+        return starts;
+    }
+
+    private static void writeShard(List<String> files, Path shardFile, long[] ends, int first) throws IOException {
+        try (FileChannel channel = FileChannel.open(shardFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            Concatenator.concatenate(files, 0, Channels.newOutputStream(channel), index -> ends[first + index] = channel.position());
+        }
+    }
+}
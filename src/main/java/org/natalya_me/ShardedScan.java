@@ -0,0 +1,189 @@
+package org.natalya_me;
+
+import org.natalya_me.algorithm.DirectedGraph;
+import org.natalya_me.algorithm.GraphSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class for reading file dependencies of a directory with several worker processes.
+ * Each process has its own heap and garbage collector, so a scan is not limited by a single JVM.
+ * <p>
+ * The directory tree is split into subtrees, the subtrees are dealt out to the workers, and each worker
+ * ({@link ScanWorker}) writes a graph fragment of its files to a temporary file. The fragments are merged into one graph.
+ * Workers run the same java executable and class path as the current process.
+ */
+public class ShardedScan {
+
+    // Number of subtrees per worker, more subtrees even out the amount of work
+    private static final int SUBTREES_PER_WORKER = 4;
+
+    private ShardedScan() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", ShardedScan.class.getName()));
+    }
+
+    /**
+     * Traverses the given path with worker processes and creates a dependency graph of all files in the directory.
+     * The graph is the same as the one of {@link DependencyReader#getDependencyGraph(String, boolean, int)}.
+     *
+     * @param rootPath path to a root directory
+     * @param invert   defines the direction of arcs, the same as for {@link DependencyReader#getDependencyGraph(String, boolean, int)}
+     * @param workers  maximum number of worker processes
+     * @return dependency graph, node ids are absolute file paths
+     * @throws IOException if a worker cannot be started or fails, or temporary files cannot be used
+     */
+    public static DirectedGraph getDependencyGraph(String rootPath, boolean invert, int workers) throws IOException {
+        return getDependencyGraph(rootPath, invert, workers, DependencyReader.LinkPolicy.FOLLOW);
+    }
+
+    /**
+     * The same as {@link #getDependencyGraph(String, boolean, int)} with the given policy for symbolic links.
+     * Aliases of directories are dropped when the tree is split, aliases of files are merged after the scan.
+     * As in a scan in one process, a file is identified by the first path a depth-first traversal by names meets.
+     *
+     * @param rootPath path to a root directory
+     * @param invert   defines the direction of arcs
+     * @param workers  maximum number of worker processes
+     * @param links    policy for symbolic links
+     * @return dependency graph, node ids are absolute file paths
+     * @throws IOException if a worker cannot be started or fails, or temporary files cannot be used
+     */
+    public static DirectedGraph getDependencyGraph(String rootPath, boolean invert, int workers, DependencyReader.LinkPolicy links) throws IOException {
+        if (rootPath == null) {
+            throw new IllegalArgumentException("Root path value cannot be null.");
+        }
+        File rootFile = new File(rootPath);
+        if (!rootFile.isDirectory()) {
+            throw new IllegalArgumentException(String.format("%s does not exist or it is not a directory.", rootPath));
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be positive.");
+        }
+        List<List<String>> shards = split(rootFile, workers, links);
+        Path directory = Files.createTempDirectory("scan");
+        List<Process> processes = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        try {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            List<Path> fragments = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                Path list = directory.resolve("subtrees" + i + ".txt");
+                Path fragment = directory.resolve("fragment" + i + ".bin");
+                files.add(list);
+                files.add(fragment);
+                fragments.add(fragment);
+                Files.write(list, shards.get(i), StandardCharsets.UTF_8);
+                processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ScanWorker.class.getName(),
+                                                 rootPath, String.valueOf(invert), list.toString(), fragment.toString(), links.name())
+                                      .inheritIO()
+                                      .start());
+            }
+            for (int i = 0; i < processes.size(); i++) {
+                int status = processes.get(i).waitFor();
+                if (status != 0) {
+                    throw new IOException(String.format("Scan worker %d failed with exit status %d.", i, status));
+                }
+            }
+            // Files required from other subtrees are present in several fragments, their nodes are merged
+            DirectedGraph graph = new DirectedGraph();
+            for (Path fragment: fragments) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fragment), 1 << 16))) {
+                    graph.addAll(GraphSnapshot.read(in).getGraph());
+                }
+            }
+            // Workers don't see each other's files, so aliases of a file in several subtrees become one node here;
+            // the smallest path in traversal order is the one a scan in one process reads the file through
+            FileIdentity identity = new FileIdentity(links);
+            List<String> ids = new ArrayList<>(graph.getNodeIds());
+            ids.sort(FileIdentity.TRAVERSAL_ORDER);
+            for (String id: ids) {
+                String canonical = identity.canonicalPath(new File(id));
+                if (!canonical.equals(id)) {
+                    graph.mergeNode(id, canonical);
+                }
+            }
+            return graph;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Scan was interrupted.", ex);
+        } finally {
+            for (Process process: processes) {
+                process.destroy();
+            }
+            for (Path file: files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Splits the directory tree into subtrees and deals them out to at most the given number of shards.
+     * Directories are replaced with their children level by level until there are enough subtrees.
+     *
+     * @param rootFile root directory
+     * @param workers  maximum number of shards
+     * @return shards, each is a list of absolute paths of directories and files
+     */
+    static List<List<String>> split(File rootFile, int workers) {
+        return split(rootFile, workers, DependencyReader.LinkPolicy.FOLLOW);
+    }
+
+    /**
+     * The same as {@link #split(File, int)}, but links skipped by the policy are dropped, and so are subtrees that are
+     * aliases of already met ones coming after them in traversal order (see {@link FileIdentity#TRAVERSAL_ORDER}),
+     * so a link loop is not expanded. An alias coming before the met one is kept, since a scan in one process
+     * reads the files through it; the files met through both aliases are merged after the scan.
+     * Subtrees of each shard are listed in traversal order.
+     */
+    static List<List<String>> split(File rootFile, int workers, DependencyReader.LinkPolicy links) {
+        // The smallest path met for each file or directory
+        Map<Object, String> firstPaths = new HashMap<>();
+        firstPaths.put(FileIdentity.key(rootFile), rootFile.getAbsolutePath());
+        List<File> subtrees = new ArrayList<>(Collections.singletonList(rootFile));
+        boolean expanded = true;
+        while (expanded && subtrees.size() < workers * SUBTREES_PER_WORKER) {
+            expanded = false;
+            List<File> next = new ArrayList<>();
+            for (File file: subtrees) {
+                if (file.isDirectory()) {
+                    for (File child: DependencyReader.listChildren(file)) {
+                        if (links == DependencyReader.LinkPolicy.SKIP && Files.isSymbolicLink(child.toPath())) continue;
+                        String path = child.getAbsolutePath();
+                        String first = firstPaths.merge(FileIdentity.key(child), path,
+                                                        (met, other) -> FileIdentity.TRAVERSAL_ORDER.compare(met, other) <= 0 ? met : other);
+                        if (first.equals(path)) {
+                            next.add(child);
+                        }
+                    }
+                    expanded = true;
+                } else {
+                    next.add(file);
+                }
+            }
+            subtrees = next;
+        }
+        subtrees.sort(Comparator.comparing(File::getAbsolutePath, FileIdentity.TRAVERSAL_ORDER));
+        List<List<String>> shards = new ArrayList<>();
+        for (int i = 0; i < subtrees.size(); i++) {
+            if (i < workers) {
+                shards.add(new ArrayList<>());
+            }
+            shards.get(i % workers).add(subtrees.get(i).getAbsolutePath());
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,178 @@
+package org.natalya_me;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Utility class for reading source files, which may be stored compressed with gzip.
+ * A file is considered compressed if it starts with the gzip magic bytes, its name doesn't matter.
+ * Compressed files are decompressed while they are read, so their contents are scanned and concatenated
+ * the same way as the contents of plain files.
+ * <p>
+ * A compressed file that cannot be decompressed (a broken header, corrupt or truncated data) fails with
+ * a {@link ZipException} naming the file.
+ */
+public class SourceFiles {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MIN_BUFFER_SIZE = 1 << 9;
+
+    private SourceFiles() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", SourceFiles.class.getName()));
+    }
+
+    /**
+     * Opens the file for reading its contents. The stream of a plain file is not buffered, the stream of
+     * a compressed file buffers compressed input in a buffer fitting the file, up to 64 KB.
+     *
+     * @param file file path
+     * @return stream of the (decompressed) contents
+     * @throws IOException if the file cannot be opened, {@link ZipException} if its gzip header is invalid
+     */
+    public static InputStream openInput(Path file) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(Files.newInputStream(file), 2);
+        try {
+            byte[] magic = new byte[2];
+            int read = in.read(magic);
+            if (read > 0) {
+                in.unread(magic, 0, read);
+            }
+            if (read < 2 || !isMagic(magic[0], magic[1])) {
+                return in;
+            }
+            int bufferSize = (int) Math.max(MIN_BUFFER_SIZE, Math.min(BUFFER_SIZE, Files.size(file)));
+            return new CheckedInputStream(file, gzip(file, in, bufferSize));
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param file file path
+     * @return true if the file is stored compressed
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isCompressed(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return isMagic(in.read(), in.read());
+        }
+    }
+
+    /**
+     * Copies the (decompressed) contents of the file to the stream.
+     *
+     * @param file file path
+     * @param out  destination, it is not closed
+     * @return number of copied bytes
+     * @throws IOException if the file cannot be read or the stream cannot be written
+     */
+    public static long copy(Path file, OutputStream out) throws IOException {
+        try (InputStream in = openInput(file)) {
+            // The contents of a compressed file are larger than the file
+            byte[] buffer = new byte[in instanceof CheckedInputStream ? BUFFER_SIZE
+                                                                      : (int) Math.max(MIN_BUFFER_SIZE, Math.min(BUFFER_SIZE, Files.size(file)))];
+            long count = 0;
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+                count += n;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * @param file file path
+     * @return (decompressed) contents of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static byte[] readAllBytes(Path file) throws IOException {
+        if (!isCompressed(file)) {
+            return Files.readAllBytes(file);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        copy(file, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the exact size of the file contents. A compressed file is decompressed to count its bytes,
+     * since the size stored in a gzip trailer covers the last gzip member only and is taken modulo 2^32.
+     *
+     * @param file file path
+     * @return size of the (decompressed) contents in bytes
+     * @throws IOException if the file cannot be read
+     */
+    public static long size(Path file) throws IOException {
+        if (!isCompressed(file)) {
+            return Files.size(file);
+        }
+        return copy(file, new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    private static boolean isMagic(int first, int second) {
+        return (first & 0xff) == (GZIPInputStream.GZIP_MAGIC & 0xff) && (second & 0xff) == (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
+    private static InputStream gzip(Path file, InputStream in, int bufferSize) throws IOException {
+        try {
+            return new GZIPInputStream(in, bufferSize);
+        } catch (EOFException | ZipException ex) {
+            throw corrupt(file, ex);
+        }
+    }
+
+    private static ZipException corrupt(Path file, IOException cause) {
+        ZipException ex = new ZipException(String.format("Compressed file %s is corrupt: %s", file, cause.getMessage()));
+        ex.initCause(cause);
+        return ex;
+    }
+
+    /**
+     * Stream of decompressed contents, reporting errors of the compressed data as a {@link ZipException} naming the file.
+     */
+    private static class CheckedInputStream extends FilterInputStream {
+
+        private final Path file;
+
+        CheckedInputStream(Path file, InputStream in) {
+            super(in);
+            this.file = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (EOFException | ZipException ex) {
+                throw corrupt(file, ex);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (EOFException | ZipException ex) {
+                throw corrupt(file, ex);
+            }
+        }
+    }
+}
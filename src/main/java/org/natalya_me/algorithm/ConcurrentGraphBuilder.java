@@ -0,0 +1,95 @@
+package org.natalya_me.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Builder of {@link DirectedGraph} that can be filled by many threads at the same time.
+ * Each thread writes nodes and arcs to its own buffer without any locking, and the buffers are merged into a graph
+ * by {@link #build()}. Duplicate nodes and arcs are allowed, they are merged as well.
+ * <p>
+ * All threads must finish adding before {@link #build()} is called, and the finish must happen-before the call
+ * (e.g. by waiting for their futures or joining them). A builder can be built only once.
+ */
+public class ConcurrentGraphBuilder {
+
+    // Buffers of all threads that have used the builder
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Buffer> threadBuffer = ThreadLocal.withInitial(this::registerBuffer);
+    private volatile boolean built = false;
+
+    /**
+     * Adds a node with the given id.
+     *
+     * @throws NullPointerException  when id == null
+     * @throws IllegalStateException if the graph has already been built
+     */
+    public void addNode(String id) {
+        Objects.requireNonNull(id, "Node id cannot be null.");
+        buffer().nodes.add(id);
+    }
+
+    /**
+     * Adds an arc between nodes with the given ids. Nodes are created if they don't exist.
+     *
+     * @throws NullPointerException  when any id == null
+     * @throws IllegalStateException if the graph has already been built
+     */
+    public void addArc(String idFrom, String idTo) {
+        Objects.requireNonNull(idFrom, "Node id cannot be null.");
+        Objects.requireNonNull(idTo, "Node id cannot be null.");
+        Buffer buffer = buffer();
+        buffer.arcs.add(idFrom);
+        buffer.arcs.add(idTo);
+    }
+
+    /**
+     * Merges buffers of all threads into a graph. The builder cannot be used afterwards.
+     *
+     * @return a graph with all added nodes and arcs
+     * @throws IllegalStateException if the graph has already been built
+     */
+    public DirectedGraph build() {
+        if (built) {
+            throw new IllegalStateException("The graph has already been built.");
+        }
+        built = true;
+        DirectedGraph graph = new DirectedGraph();
+        for (Buffer buffer: buffers) {
+            for (String id: buffer.nodes) {
+                graph.addOrFindNode(id);
+            }
+            for (int i = 0; i < buffer.arcs.size(); i += 2) {
+                graph.addOrFindNode(buffer.arcs.get(i));
+                graph.addOrFindNode(buffer.arcs.get(i + 1));
+                graph.addArc(buffer.arcs.get(i), buffer.arcs.get(i + 1));
+            }
+        }
+        buffers.clear();
+        return graph;
+    }
+
+    private Buffer buffer() {
+        if (built) {
+            throw new IllegalStateException("The graph has already been built.");
+        }
+        return threadBuffer.get();
+    }
+
+    private Buffer registerBuffer() {
+        Buffer buffer = new Buffer();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Nodes and arcs added by one thread. Arcs are stored as pairs of consecutive ids.
+     */
+    private static class Buffer {
+        private final List<String> nodes = new ArrayList<>();
+        private final List<String> arcs = new ArrayList<>();
+    }
+}
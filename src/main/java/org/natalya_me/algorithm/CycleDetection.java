@@ -1,5 +1,6 @@
 package org.natalya_me.algorithm;
 
+import java.nio.IntBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -43,7 +44,7 @@ public class CycleDetection {
             Deque<DirectedGraph.Node> stack = new ArrayDeque<>();
             // Any node from the chosen ones
             stack.add(nodes.iterator().next());
-            if (detectCycle(visited, stack, cycle)) {
+            if (detectCycle(visited, new HashSet<>(), stack, cycle)) {
                 return cycle;
             }
             if (graphCopy == null) {
@@ -66,12 +67,82 @@ public class CycleDetection {
         return cycle;
     }
 
-    private static boolean detectCycle(Set<DirectedGraph.Node> visited, Deque<DirectedGraph.Node> stack, List<String> cycle) {
+    /**
+     * Finds a cycle in a graph stored in a memory-mapped file if it is present.
+     * First, nodes that cannot be members of a cycle are removed one by one (the ones without incoming arcs from remaining nodes).
+     * Each remaining node has a remaining predecessor, so walking from predecessor to predecessor inevitably closes a cycle.
+     * Working memory is allocated outside the heap.
+     *
+     * @param graph a graph stored in a memory-mapped file
+     * @return a list of node ids that make a cycle (in a corresponding order)
+     * @throws IllegalArgumentException if the graph has 2^29 nodes or more, which don't fit into direct buffers
+     */
+    public static List<String> findCycleMapped(MappedGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        if (graph.isEmpty()) return Collections.emptyList();
+
+        int size = graph.size();
+        // Number of incoming arcs from remaining nodes, -1 marks removed nodes
+        IntBuffer inDegree = MappedIntArray.allocateDirect(size);
+        // Queue of nodes to remove; later reused as the walk path
+        IntBuffer queue = MappedIntArray.allocateDirect(size);
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            int degree = graph.getInDegree(i);
+            inDegree.put(i, degree);
+            if (degree == 0) {
+                queue.put(tail++, i);
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = queue.get(head);
+            inDegree.put(node, -1);
+            for (int k = 0; k < graph.getOutDegree(node); k++) {
+                int to = graph.getOutArc(node, k);
+                int degree = inDegree.get(to) - 1;
+                inDegree.put(to, degree);
+                if (degree == 0) {
+                    queue.put(tail++, to);
+                }
+            }
+        }
+        if (tail == size) return Collections.emptyList();
+
+        int current = 0;
+        while (inDegree.get(current) <= 0) {
+            current++;
+        }
+        // Position of a node in the walk plus one, zero for nodes that haven't been visited
+        IntBuffer step = MappedIntArray.allocateDirect(size);
+        IntBuffer walk = queue;
+        int length = 0;
+        while (step.get(current) == 0) {
+            step.put(current, length + 1);
+            walk.put(length++, current);
+            int k = 0;
+            while (inDegree.get(graph.getInArc(current, k)) <= 0) {
+                k++;
+            }
+            current = graph.getInArc(current, k);
+        }
+        // The walk goes against arcs, so the cycle is collected backwards to keep the order of arcs
+        int start = step.get(current) - 1;
+        List<String> cycle = new ArrayList<>(length - start);
+        cycle.add(graph.getId(walk.get(start)));
+        for (int i = length - 1; i > start; i--) {
+            cycle.add(graph.getId(walk.get(i)));
+        }
+        return cycle;
+    }
+
+    private static boolean detectCycle(Set<DirectedGraph.Node> visited, Set<DirectedGraph.Node> path, Deque<DirectedGraph.Node> stack,
+                                       List<String> cycle) {
         if (stack.isEmpty()) return false;
         DirectedGraph.Node current = stack.peekLast();
-        // Mark last node in the stack as visited
-        // If already visited, write information about the cycle and return true
-        if (!visited.add(current)) {
+        // If the last node in the stack is already on the path, write information about the cycle and return true
+        if (path.contains(current)) {
             stack.pollLast();
             cycle.add(current.getId());
             while (!stack.isEmpty() && (stack.peekLast() != current)) {
@@ -79,14 +150,21 @@ public class CycleDetection {
             }
             return true;
         }
+        // A node reached again by another path has already been explored without finding a cycle
+        if (!visited.add(current)) {
+            stack.pollLast();
+            return false;
+        }
+        path.add(current);
         // Visit each incoming node (opposite direction of an arc)
         // It is done so the order of node ids is right in the result list
         for (DirectedGraph.Node from: current.getReferenceFromIterable()) {
             stack.add(from);
-            if(detectCycle(visited, stack, cycle)) return true;
+            if(detectCycle(visited, path, stack, cycle)) return true;
         }
         // Pop current element
         stack.pollLast();
+        path.remove(current);
         return false;
     }
 }
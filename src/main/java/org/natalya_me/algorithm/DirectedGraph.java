@@ -1,5 +1,6 @@
 package org.natalya_me.algorithm;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -86,11 +87,12 @@ public class DirectedGraph {
     public boolean removeNode(String id) {
         Node node = nodes.get(id);
         if (node != null) {
-            for (Node from: node.getReferenceFromIterable()) {
+            // Arcs are removed from the sets being iterated, so copies are iterated
+            for (Node from: new ArrayList<>(node.getReferenceFrom())) {
                 from.removeReferenceTo(node);
                 node.removeReferenceFrom(from);
             }
-            for (Node to: node.getReferenceToIterable()) {
+            for (Node to: new ArrayList<>(node.getReferenceTo())) {
                 to.removeReferenceFrom(node);
                 node.removeReferenceTo(to);
             }
@@ -170,6 +172,53 @@ public class DirectedGraph {
         return graphCopy;
     }
 
+    /**
+     * Adds all nodes and arcs of the other graph to this graph. Nodes with equal ids become one node.
+     * The other graph is not modified and doesn't share any mutable object with this one afterwards.
+     *
+     * @param other a graph to add
+     */
+    public void addAll(DirectedGraph other) {
+        for (Node n: other.nodes.values()) {
+            Node node = addOrFindNode(n.getId());
+            for (Node to: n.getReferenceToIterable()) {
+                addArc(node, addOrFindNode(to.getId()));
+            }
+        }
+    }
+
+    /**
+     * Merges the node into another one: arcs of the node are moved to the other node, and the node is removed.
+     * Arcs between the two nodes are dropped instead of becoming loops.
+     *
+     * @param id     id of the node to remove
+     * @param intoId id of the node receiving the arcs
+     * @return true if both nodes exist, they differ and the node was merged
+     */
+    public boolean mergeNode(String id, String intoId) {
+        Node node = nodes.get(id);
+        Node into = nodes.get(intoId);
+        if (node == null || into == null || node == into) return false;
+        for (Node from: node.getReferenceFromIterable()) {
+            if (from != into) {
+                addArc(from, into);
+            }
+        }
+        for (Node to: node.getReferenceToIterable()) {
+            if (to != into) {
+                addArc(into, to);
+            }
+        }
+        return removeNode(id);
+    }
+
+    /**
+     * @return ids of all nodes, the set is a copy
+     */
+    public Set<String> getNodeIds() {
+        return new HashSet<>(nodes.keySet());
+    }
+
     protected Node addOrFindNode(String id) {
         return nodes.computeIfAbsent(id, (k) -> new Node(id));
     }
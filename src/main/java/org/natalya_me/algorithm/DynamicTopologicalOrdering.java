@@ -0,0 +1,255 @@
+package org.natalya_me.algorithm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A directed acyclic graph together with its topological order that is maintained while the graph is modified.
+ * Uses the Pearce-Kelly algorithm: inserting an arc that violates the current order reorders only the nodes
+ * between its ends in the order that are reachable from its target or reach its source. Removing nodes or arcs never
+ * violates the order. An arc that would create a cycle is detected at insertion and rejected.
+ * <p>
+ * The initial order is built by {@link TopologicalOrdering} with the given comparator, but after modifications
+ * the order is only guaranteed to be valid, not to be the one the comparator would produce.
+ * <p>
+ * Not thread safe.
+ */
+public class DynamicTopologicalOrdering {
+
+    private final DirectedGraph graph;
+    // Position of each node in the order; positions are unique, but there may be gaps between them
+    private final Map<DirectedGraph.Node, Integer> ord = new HashMap<>();
+    // Nodes by their positions, null for a gap
+    private final List<DirectedGraph.Node> order = new ArrayList<>();
+
+    /**
+     * Creates an ordering for a copy of the given graph.
+     *
+     * @param graph      a directed acyclic graph, it is copied and not modified
+     * @param comparator secondary sorting rule for the initial order
+     *
+     * @throws IllegalArgumentException if the graph has a cycle
+     */
+    public DynamicTopologicalOrdering(DirectedGraph graph, Comparator<? super DirectedGraph.Node> comparator) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        TopologicalOrdering.TopologicalOrderingResult sorted = new TopologicalOrdering(comparator).sort(graph);
+        if (sorted.getType() == TopologicalOrdering.TopologicalOrderingResult.TYPE.CYCLE) {
+            throw new IllegalArgumentException("The graph has a cycle: " + String.join(" <- ", sorted.getResult()));
+        }
+        this.graph = graph.deepCopy();
+        for (String id: sorted.getResult()) {
+            append(this.graph.findNode(id));
+        }
+    }
+
+    /**
+     * Adds a new node to the end of the order.
+     *
+     * @param id id of a node
+     * @return   true if a node was created, false if it already exists
+     */
+    public boolean addNode(String id) {
+        if (!graph.addNode(id)) return false;
+        append(graph.findNode(id));
+        return true;
+    }
+
+    /**
+     * Removes a node with all its arcs.
+     *
+     * @param id node id
+     * @return   true if the node existed and was removed
+     */
+    public boolean removeNode(String id) {
+        DirectedGraph.Node node = graph.findNode(id);
+        if (node == null) return false;
+        order.set(ord.remove(node), null);
+        graph.removeNode(id);
+        if (order.size() > 2 * ord.size() + 16) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Removes an arc if it exists. The order stays valid without any changes.
+     *
+     * @return true if the arc existed and was removed
+     */
+    public boolean removeArc(String idFrom, String idTo) {
+        return graph.removeArc(idFrom, idTo);
+    }
+
+    /**
+     * Inserts an arc and updates the order if the arc violates it.
+     * If the arc would create a cycle, it is not inserted and the graph stays unchanged.
+     *
+     * @param idFrom id of the source node
+     * @param idTo   id of the target node
+     * @return       an empty list if the arc was inserted or already exists,
+     *               otherwise a list of node ids that make the cycle the arc would create (in a corresponding order)
+     *
+     * @throws IllegalArgumentException if any of the nodes doesn't exist
+     */
+    public List<String> addArc(String idFrom, String idTo) {
+        DirectedGraph.Node from = graph.findNode(idFrom);
+        DirectedGraph.Node to = graph.findNode(idTo);
+        if (from == null || to == null) {
+            throw new IllegalArgumentException(String.format("Node %s does not exist.", from == null ? idFrom : idTo));
+        }
+        if (graph.hasArc(idFrom, idTo)) return Collections.emptyList();
+        if (from == to) return Collections.singletonList(idFrom);
+
+        int lowerBound = ord.get(to);
+        int upperBound = ord.get(from);
+        // The arc agrees with the current order
+        if (upperBound < lowerBound) {
+            graph.addArc(idFrom, idTo);
+            return Collections.emptyList();
+        }
+        // Nodes reachable from the target that are placed not after the source in the order
+        Map<DirectedGraph.Node, DirectedGraph.Node> parents = new HashMap<>();
+        List<DirectedGraph.Node> forward = new ArrayList<>();
+        if (searchForward(to, from, upperBound, parents, forward)) {
+            List<String> cycle = new ArrayList<>();
+            for (DirectedGraph.Node n = from; n != to; n = parents.get(n)) {
+                cycle.add(n.getId());
+            }
+            cycle.add(to.getId());
+            Collections.reverse(cycle);
+            return cycle;
+        }
+        // Nodes that reach the source and are placed not before the target in the order
+        List<DirectedGraph.Node> backward = searchBackward(from, lowerBound);
+        reorder(backward, forward);
+        graph.addArc(idFrom, idTo);
+        return Collections.emptyList();
+    }
+
+    /**
+     * Checks if there is an arc between nodes with the given ids.
+     */
+    public boolean hasArc(String idFrom, String idTo) {
+        return graph.hasArc(idFrom, idTo);
+    }
+
+    /**
+     * @return number of nodes
+     */
+    public int size() {
+        return ord.size();
+    }
+
+    /**
+     * @return node ids in the current topological order
+     */
+    public List<String> getOrder() {
+        List<String> result = new ArrayList<>(ord.size());
+        for (DirectedGraph.Node n: order) {
+            if (n != null) {
+                result.add(n.getId());
+            }
+        }
+        return result;
+    }
+
+    private void append(DirectedGraph.Node node) {
+        ord.put(node, order.size());
+        order.add(node);
+    }
+
+    /**
+     * Depth-first search from the start node along arcs, limited to nodes with position less than or equal to the bound.
+     *
+     * @return true if the target node was reached
+     */
+    private boolean searchForward(DirectedGraph.Node start, DirectedGraph.Node target, int upperBound,
+                                  Map<DirectedGraph.Node, DirectedGraph.Node> parents, List<DirectedGraph.Node> visited) {
+        Deque<DirectedGraph.Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        parents.put(start, null);
+        while (!stack.isEmpty()) {
+            DirectedGraph.Node current = stack.pop();
+            visited.add(current);
+            for (DirectedGraph.Node next: current.getReferenceToIterable()) {
+                if (parents.containsKey(next) || ord.get(next) > upperBound) continue;
+                parents.put(next, current);
+                if (next == target) return true;
+                stack.push(next);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Depth-first search from the start node against arcs, limited to nodes with position not less than the bound.
+     */
+    private List<DirectedGraph.Node> searchBackward(DirectedGraph.Node start, int lowerBound) {
+        Set<DirectedGraph.Node> seen = new HashSet<>();
+        List<DirectedGraph.Node> visited = new ArrayList<>();
+        Deque<DirectedGraph.Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        seen.add(start);
+        while (!stack.isEmpty()) {
+            DirectedGraph.Node current = stack.pop();
+            visited.add(current);
+            for (DirectedGraph.Node previous: current.getReferenceFromIterable()) {
+                if (ord.get(previous) < lowerBound || !seen.add(previous)) continue;
+                stack.push(previous);
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Reassigns positions occupied by both node sets: nodes that reach the source go first, keeping their relative order,
+     * then nodes reachable from the target, also keeping their relative order.
+     */
+    private void reorder(List<DirectedGraph.Node> backward, List<DirectedGraph.Node> forward) {
+        Comparator<DirectedGraph.Node> byPosition = Comparator.comparing(ord::get);
+        backward.sort(byPosition);
+        forward.sort(byPosition);
+        List<Integer> positions = new ArrayList<>(backward.size() + forward.size());
+        List<DirectedGraph.Node> nodes = new ArrayList<>(backward.size() + forward.size());
+        for (DirectedGraph.Node n: backward) {
+            positions.add(ord.get(n));
+            nodes.add(n);
+        }
+        for (DirectedGraph.Node n: forward) {
+            positions.add(ord.get(n));
+            nodes.add(n);
+        }
+        Collections.sort(positions);
+        for (int i = 0; i < nodes.size(); i++) {
+            ord.put(nodes.get(i), positions.get(i));
+            order.set(positions.get(i), nodes.get(i));
+        }
+    }
+
+    /**
+     * Removes gaps left by removed nodes.
+     */
+    private void compact() {
+        List<DirectedGraph.Node> nodes = new ArrayList<>(ord.size());
+        for (DirectedGraph.Node n: order) {
+            if (n != null) {
+                nodes.add(n);
+            }
+        }
+        order.clear();
+        ord.clear();
+        for (DirectedGraph.Node n: nodes) {
+            append(n);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package org.natalya_me.algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds a {@link MappedGraph} file for a graph that doesn't fit into memory.
+ * Node ids and arcs are written to disk as they are added, and the graph file is produced by external sorting:
+ * <ol>
+ *     <li>ids are sorted and numbered, which gives the node table;</li>
+ *     <li>arcs sorted by source id are joined with the sorted ids to replace source ids with indices;</li>
+ *     <li>the result sorted by target id is joined with the ids again, which gives incoming arcs of each node;</li>
+ *     <li>arcs sorted by source index give outgoing arcs of each node.</li>
+ * </ol>
+ * At most {@code bufferSize} ids or arcs of each kind are kept in memory at once.
+ * <p>
+ * The builder is not thread safe. Temporary files are created in the given directory and removed when the graph
+ * is built or the builder is closed.
+ */
+public class ExternalGraphBuilder implements Closeable {
+
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private static final ExternalSorter.Codec<String> ID_CODEC = new ExternalSorter.Codec<String>() {
+        @Override
+        public void write(DataOutput out, String id) throws IOException {
+            out.writeUTF(id);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    };
+
+    private static final ExternalSorter.Codec<Integer> INDEX_CODEC = new ExternalSorter.Codec<Integer>() {
+        @Override
+        public void write(DataOutput out, Integer index) throws IOException {
+            out.writeInt(index);
+        }
+
+        @Override
+        public Integer read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    private static final ExternalSorter.Codec<Long> LONG_CODEC = new ExternalSorter.Codec<Long>() {
+        @Override
+        public void write(DataOutput out, Long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        @Override
+        public Long read(DataInput in) throws IOException {
+            return in.readLong();
+        }
+    };
+
+    private final Path directory;
+    private final int bufferSize;
+    private final ExternalSorter<String> ids;
+    private final ExternalSorter<Arc<String, String>> arcs;
+    private boolean built;
+
+    /**
+     * @param directory  directory for temporary files
+     * @param bufferSize maximum number of ids and arcs kept in memory
+     */
+    public ExternalGraphBuilder(Path directory, int bufferSize) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        this.directory = directory;
+        this.bufferSize = bufferSize;
+        this.ids = new ExternalSorter<>(directory, Comparator.naturalOrder(), ID_CODEC, bufferSize);
+        this.arcs = new ExternalSorter<>(directory, Comparator.<Arc<String, String>, String>comparing(a -> a.from).thenComparing(a -> a.to),
+                new ArcCodec<>(ID_CODEC, ID_CODEC), bufferSize);
+    }
+
+    /**
+     * Adds a node. Adding the same id again has no effect.
+     *
+     * @param id node id
+     * @throws IOException if temporary files cannot be written
+     */
+    public void addNode(String id) throws IOException {
+        if (id == null) {
+            throw new IllegalArgumentException("id cannot be null");
+        }
+        checkNotBuilt();
+        ids.add(id);
+    }
+
+    /**
+     * Adds an arc, nodes are added as well. Adding the same arc again has no effect.
+     *
+     * @param idFrom source node id
+     * @param idTo   target node id
+     * @throws IOException if temporary files cannot be written
+     */
+    public void addArc(String idFrom, String idTo) throws IOException {
+        if (idFrom == null || idTo == null) {
+            throw new IllegalArgumentException("Node ids cannot be null");
+        }
+        checkNotBuilt();
+        ids.add(idFrom);
+        ids.add(idTo);
+        arcs.add(new Arc<>(idFrom, idTo));
+    }
+
+    /**
+     * Writes the graph file and opens it. Can be called only once.
+     *
+     * @param file graph file path, an existing file is overwritten
+     * @return an opened instance of {@link MappedGraph}
+     * @throws IOException if temporary files or the graph file cannot be written
+     */
+    public MappedGraph build(Path file) throws IOException {
+        checkNotBuilt();
+        built = true;
+        List<Path> sections = new ArrayList<>();
+        try {
+            Path idList = createTempFile(sections);
+            Path idOffsets = createTempFile(sections);
+            Path idBytes = createTempFile(sections);
+            Path outOffsets = createTempFile(sections);
+            Path outTargets = createTempFile(sections);
+            Path inOffsets = createTempFile(sections);
+            Path inSources = createTempFile(sections);
+
+            // Node table: unique ids in natural order
+            int nodeCount = 0;
+            long idByteCount = 0;
+            try (ExternalSorter.Cursor<String> cursor = ids.sorted();
+                 DataOutputStream list = openOutput(idList);
+                 DataOutputStream offsets = openOutput(idOffsets);
+                 DataOutputStream bytes = openOutput(idBytes)) {
+                offsets.writeLong(0);
+                String previous = null;
+                for (String id = cursor.next(); id != null; id = cursor.next()) {
+                    if (id.equals(previous)) continue;
+                    previous = id;
+                    byte[] encoded = id.getBytes(StandardCharsets.UTF_8);
+                    bytes.write(encoded);
+                    idByteCount += encoded.length;
+                    offsets.writeLong(idByteCount);
+                    list.writeUTF(id);
+                    nodeCount++;
+                }
+            }
+            ids.close();
+
+            try (ExternalSorter<Long> bySource = new ExternalSorter<>(directory, Comparator.naturalOrder(), LONG_CODEC, bufferSize)) {
+                long arcCount = 0;
+                // Source ids are replaced with indices, the result is ordered by target id;
+                // the files of this sorter are released as soon as incoming arcs are written
+                try (ExternalSorter<Arc<Integer, String>> byTarget = new ExternalSorter<>(directory,
+                        Comparator.<Arc<Integer, String>, String>comparing(a -> a.to).thenComparing(a -> a.from),
+                        new ArcCodec<>(INDEX_CODEC, ID_CODEC), bufferSize)) {
+                    try (ExternalSorter.Cursor<Arc<String, String>> cursor = arcs.sorted(); IdIndex index = new IdIndex(idList)) {
+                        for (Arc<String, String> arc = cursor.next(); arc != null; arc = cursor.next()) {
+                            byTarget.add(new Arc<>(index.find(arc.from), arc.to));
+                        }
+                    }
+                    arcs.close();
+
+                    // Target ids are replaced with indices too; arcs come grouped by target, that gives incoming arcs
+                    try (ExternalSorter.Cursor<Arc<Integer, String>> cursor = byTarget.sorted(); IdIndex index = new IdIndex(idList);
+                         CsrWriter in = new CsrWriter(inOffsets, inSources)) {
+                        long previous = -1;
+                        for (Arc<Integer, String> arc = cursor.next(); arc != null; arc = cursor.next()) {
+                            long packed = ((long) arc.from << 32) | index.find(arc.to);
+                            if (packed == previous) continue;
+                            previous = packed;
+                            in.add((int) packed, arc.from);
+                            bySource.add(packed);
+                            arcCount++;
+                        }
+                        in.finish(nodeCount);
+                    }
+                }
+
+                // Packed arcs are ordered by source index, then by target index
+                try (ExternalSorter.Cursor<Long> cursor = bySource.sorted(); CsrWriter out = new CsrWriter(outOffsets, outTargets)) {
+                    for (Long packed = cursor.next(); packed != null; packed = cursor.next()) {
+                        out.add((int) (packed >>> 32), (int) (long) packed);
+                    }
+                    out.finish(nodeCount);
+                }
+                MappedGraph.write(file, nodeCount, arcCount, idByteCount, idOffsets, idBytes, outOffsets, outTargets, inOffsets, inSources);
+            }
+        } finally {
+            for (Path section: sections) {
+                Files.deleteIfExists(section);
+            }
+            close();
+        }
+        return MappedGraph.open(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            ids.close();
+        } finally {
+            arcs.close();
+        }
+    }
+
+    private void checkNotBuilt() {
+        if (built) {
+            throw new IllegalStateException("The graph is already built.");
+        }
+    }
+
+    private Path createTempFile(List<Path> files) throws IOException {
+        Path file = Files.createTempFile(directory, "graph", ".tmp");
+        files.add(file);
+        return file;
+    }
+
+    private static DataOutputStream openOutput(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE));
+    }
+
+    private static class Arc<F, T> {
+
+        private final F from;
+        private final T to;
+
+        private Arc(F from, T to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static class ArcCodec<F, T> implements ExternalSorter.Codec<Arc<F, T>> {
+
+        private final ExternalSorter.Codec<F> fromCodec;
+        private final ExternalSorter.Codec<T> toCodec;
+
+        private ArcCodec(ExternalSorter.Codec<F> fromCodec, ExternalSorter.Codec<T> toCodec) {
+            this.fromCodec = fromCodec;
+            this.toCodec = toCodec;
+        }
+
+        @Override
+        public void write(DataOutput out, Arc<F, T> arc) throws IOException {
+            fromCodec.write(out, arc.from);
+            toCodec.write(out, arc.to);
+        }
+
+        @Override
+        public Arc<F, T> read(DataInput in) throws IOException {
+            return new Arc<>(fromCodec.read(in), toCodec.read(in));
+        }
+    }
+
+    /**
+     * Finds indices of ids in the sorted id list. Ids must be looked up in non-decreasing order,
+     * so the list is read only once.
+     */
+    private static class IdIndex implements Closeable {
+
+        private final DataInputStream in;
+        private String current;
+        private int index = -1;
+
+        private IdIndex(Path idList) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(idList), IO_BUFFER_SIZE));
+        }
+
+        private int find(String id) throws IOException {
+            while (current == null || current.compareTo(id) < 0) {
+                current = in.readUTF();
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes an offsets section and a values section of adjacency arrays. Values must be added grouped by node,
+     * in ascending order of node indices.
+     */
+    private static class CsrWriter implements Closeable {
+
+        private final DataOutputStream offsets;
+        private final DataOutputStream values;
+        private int node;
+        private long count;
+
+        private CsrWriter(Path offsetsFile, Path valuesFile) throws IOException {
+            this.offsets = openOutput(offsetsFile);
+            this.values = openOutput(valuesFile);
+            offsets.writeLong(0);
+        }
+
+        private void add(int key, int value) throws IOException {
+            // Offsets of all nodes before the key are complete
+            while (node < key) {
+                offsets.writeLong(count);
+                node++;
+            }
+            values.writeInt(value);
+            count++;
+        }
+
+        private void finish(int nodeCount) throws IOException {
+            while (node < nodeCount) {
+                offsets.writeLong(count);
+                node++;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                offsets.close();
+            } finally {
+                values.close();
+            }
+        }
+    }
+}
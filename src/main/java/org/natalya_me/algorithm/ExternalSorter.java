@@ -0,0 +1,277 @@
+package org.natalya_me.algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts a sequence of items that doesn't fit into memory.
+ * Items are collected into a buffer of a fixed size, each full buffer is sorted and written to a run file,
+ * and the runs are merged when the sorted sequence is read. At most {@value #MAX_MERGE_WIDTH} runs are merged at once,
+ * larger numbers of runs are merged in several passes.
+ * <p>
+ * The sorter is not thread safe. Run files are created in the given directory and removed by {@link #close()}.
+ *
+ * @param <T> item type
+ */
+class ExternalSorter<T> implements Closeable {
+
+    private static final int MAX_MERGE_WIDTH = 64;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Binary representation of items in run files.
+     */
+    interface Codec<T> {
+
+        void write(DataOutput out, T item) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    /**
+     * Sequential reader of sorted items.
+     */
+    interface Cursor<T> extends Closeable {
+
+        /**
+         * @return the next item, or null after the last one
+         */
+        T next() throws IOException;
+    }
+
+    private final Path directory;
+    private final Comparator<? super T> comparator;
+    private final Codec<T> codec;
+    private final int bufferSize;
+    private final List<T> buffer = new ArrayList<>();
+    private final List<Run> runs = new ArrayList<>();
+    private boolean sorted;
+
+    /**
+     * @param directory  directory for run files
+     * @param comparator order of items
+     * @param codec      binary representation of items
+     * @param bufferSize maximum number of items kept in memory
+     */
+    ExternalSorter(Path directory, Comparator<? super T> comparator, Codec<T> codec, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive.");
+        }
+        this.directory = directory;
+        this.comparator = comparator;
+        this.codec = codec;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Adds an item. A full buffer is written to disk.
+     *
+     * @param item not null item
+     * @throws IOException if a run file cannot be written
+     */
+    void add(T item) throws IOException {
+        if (sorted) {
+            throw new IllegalStateException("Items cannot be added after sorting.");
+        }
+        buffer.add(item);
+        if (buffer.size() >= bufferSize) {
+            buffer.sort(comparator);
+            runs.add(writeRun(new ListCursor<>(buffer.iterator()), buffer.size()));
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Finishes adding items and opens the sorted sequence. Items of the last buffer are merged without being written.
+     * Can be called only once.
+     *
+     * @return cursor over all added items in sorted order, equal items are not removed
+     * @throws IOException if run files cannot be read or written
+     */
+    Cursor<T> sorted() throws IOException {
+        if (sorted) {
+            throw new IllegalStateException("Items are already sorted.");
+        }
+        sorted = true;
+        buffer.sort(comparator);
+        while (runs.size() > MAX_MERGE_WIDTH) {
+            List<Run> group = new ArrayList<>(runs.subList(0, MAX_MERGE_WIDTH));
+            runs.subList(0, MAX_MERGE_WIDTH).clear();
+            long size = 0;
+            for (Run run: group) {
+                size += run.size;
+            }
+            try (Cursor<T> cursor = merge(group, Collections.emptyList())) {
+                runs.add(writeRun(cursor, size));
+            }
+            for (Run run: group) {
+                Files.deleteIfExists(run.file);
+            }
+        }
+        return merge(runs, buffer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Run run: runs) {
+            Files.deleteIfExists(run.file);
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private Run writeRun(Cursor<T> items, long size) throws IOException {
+        Path file = Files.createTempFile(directory, "run", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE))) {
+            for (T item = items.next(); item != null; item = items.next()) {
+                codec.write(out, item);
+            }
+        }
+        return new Run(file, size);
+    }
+
+    private Cursor<T> merge(List<Run> runs, List<T> items) throws IOException {
+        List<Cursor<T>> sources = new ArrayList<>(runs.size() + 1);
+        try {
+            for (Run run: runs) {
+                sources.add(new RunCursor<>(run, codec));
+            }
+        } catch (IOException ex) {
+            for (Cursor<T> source: sources) {
+                source.close();
+            }
+            throw ex;
+        }
+        sources.add(new ListCursor<>(items.iterator()));
+        return new MergeCursor<>(sources, comparator);
+    }
+
+    private static class Run {
+
+        private final Path file;
+        private final long size;
+
+        private Run(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    private static class ListCursor<T> implements Cursor<T> {
+
+        private final Iterator<T> iterator;
+
+        private ListCursor(Iterator<T> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public T next() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class RunCursor<T> implements Cursor<T> {
+
+        private final DataInputStream in;
+        private final Codec<T> codec;
+        private long remaining;
+
+        private RunCursor(Run run, Codec<T> codec) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.file), IO_BUFFER_SIZE));
+            this.codec = codec;
+            this.remaining = run.size;
+        }
+
+        @Override
+        public T next() throws IOException {
+            if (remaining == 0) return null;
+            remaining--;
+            return codec.read(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Merges sorted sources keeping the current item of each source in a heap.
+     */
+    private static class MergeCursor<T> implements Cursor<T> {
+
+        private final List<Cursor<T>> sources;
+        private final PriorityQueue<Head<T>> heads;
+
+        private MergeCursor(List<Cursor<T>> sources, Comparator<? super T> comparator) throws IOException {
+            this.sources = sources;
+            this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> comparator.compare(a.item, b.item));
+            try {
+                for (Cursor<T> source: sources) {
+                    T item = source.next();
+                    if (item != null) {
+                        heads.add(new Head<>(item, source));
+                    }
+                }
+            } catch (IOException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        @Override
+        public T next() throws IOException {
+            Head<T> head = heads.poll();
+            if (head == null) return null;
+            T item = head.item;
+            head.item = head.source.next();
+            if (head.item != null) {
+                heads.add(head);
+            }
+            return item;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (Cursor<T> source: sources) {
+                try {
+                    source.close();
+                } catch (IOException ex) {
+                    failure = ex;
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    private static class Head<T> {
+
+        private T item;
+        private final Cursor<T> source;
+
+        private Head(T item, Cursor<T> source) {
+            this.item = item;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.natalya_me.algorithm;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Structural metrics of a directed graph: the longest path, nodes with the largest in- and out-degree,
+ * number of weakly connected components and widths of topological levels (see {@link TopologicalOrdering#sortByLevels(DirectedGraph)}).
+ * All metrics are computed in time linear in the graph size (and logarithmic in the number of top nodes).
+ * <p>
+ * The longest path and levels are defined only for acyclic graphs, for a graph with a cycle they are empty.
+ */
+public class GraphAnalytics {
+
+    private final int nodeCount;
+    private final long arcCount;
+    private final boolean acyclic;
+    private final List<String> longestPath;
+    private final List<Integer> levelWidths;
+    private final int componentCount;
+    private final List<Map.Entry<String, Integer>> topInDegree;
+    private final List<Map.Entry<String, Integer>> topOutDegree;
+
+    private GraphAnalytics(int nodeCount, long arcCount, boolean acyclic, List<String> longestPath, List<Integer> levelWidths,
+                           int componentCount, List<Map.Entry<String, Integer>> topInDegree, List<Map.Entry<String, Integer>> topOutDegree) {
+        this.nodeCount = nodeCount;
+        this.arcCount = arcCount;
+        this.acyclic = acyclic;
+        this.longestPath = longestPath;
+        this.levelWidths = levelWidths;
+        this.componentCount = componentCount;
+        this.topInDegree = topInDegree;
+        this.topOutDegree = topOutDegree;
+    }
+
+    /**
+     * Computes metrics of the graph.
+     *
+     * @param graph a directed graph, it is not modified
+     * @param top   number of nodes with the largest degrees to report
+     * @return computed metrics
+     */
+    public static GraphAnalytics analyze(DirectedGraph graph, int top) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        if (top < 0) {
+            throw new IllegalArgumentException("top cannot be negative");
+        }
+        List<DirectedGraph.Node> nodes = new ArrayList<>(graph.getNodes(null));
+        Map<DirectedGraph.Node, Integer> index = new HashMap<>();
+        for (DirectedGraph.Node n: nodes) {
+            index.put(n, index.size());
+        }
+        int size = nodes.size();
+        int[] inDegree = new int[size];
+        int[] outDegree = new int[size];
+        long arcCount = 0;
+        // Union-find forest for weakly connected components
+        int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        int componentCount = size;
+        for (int i = 0; i < size; i++) {
+            for (DirectedGraph.Node to: nodes.get(i).getReferenceToIterable()) {
+                int k = index.get(to);
+                outDegree[i]++;
+                inDegree[k]++;
+                arcCount++;
+                int rootI = find(parent, i);
+                int rootK = find(parent, k);
+                if (rootI != rootK) {
+                    parent[rootI] = rootK;
+                    componentCount--;
+                }
+            }
+        }
+
+        // Levels by removing nodes without incoming arcs; the longest path ends at the last level
+        int[] remaining = inDegree.clone();
+        int[] length = new int[size];
+        int[] previous = new int[size];
+        List<Integer> level = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            previous[i] = -1;
+            if (remaining[i] == 0) {
+                level.add(i);
+            }
+        }
+        List<Integer> levelWidths = new ArrayList<>();
+        int visited = 0;
+        int last = -1;
+        while (!level.isEmpty()) {
+            levelWidths.add(level.size());
+            visited += level.size();
+            last = level.get(0);
+            List<Integer> nextLevel = new ArrayList<>();
+            for (int i: level) {
+                for (DirectedGraph.Node to: nodes.get(i).getReferenceToIterable()) {
+                    int k = index.get(to);
+                    if (length[i] + 1 > length[k]) {
+                        length[k] = length[i] + 1;
+                        previous[k] = i;
+                    }
+                    if (--remaining[k] == 0) {
+                        nextLevel.add(k);
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        boolean acyclic = visited == size;
+        List<String> longestPath = new ArrayList<>();
+        if (acyclic) {
+            for (int i = last; i >= 0; i = previous[i]) {
+                longestPath.add(nodes.get(i).getId());
+            }
+            Collections.reverse(longestPath);
+        } else {
+            levelWidths.clear();
+        }
+        return new GraphAnalytics(size, arcCount, acyclic, longestPath, levelWidths, componentCount,
+                top(nodes, inDegree, top), top(nodes, outDegree, top));
+    }
+
+    /**
+     * @return number of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return number of arcs
+     */
+    public long getArcCount() {
+        return arcCount;
+    }
+
+    /**
+     * @return true if the graph has no cycles
+     */
+    public boolean isAcyclic() {
+        return acyclic;
+    }
+
+    /**
+     * @return ids of nodes of one of the longest paths in the order of arcs, or an empty list for a graph with a cycle
+     */
+    public List<String> getLongestPath() {
+        return longestPath;
+    }
+
+    /**
+     * @return number of nodes in each topological level, or an empty list for a graph with a cycle
+     */
+    public List<Integer> getLevelWidths() {
+        return levelWidths;
+    }
+
+    /**
+     * @return number of weakly connected components (arc directions are ignored)
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * @return node ids with the largest number of incoming arcs, in descending order of the number
+     */
+    public List<Map.Entry<String, Integer>> getTopInDegree() {
+        return topInDegree;
+    }
+
+    /**
+     * @return node ids with the largest number of outgoing arcs, in descending order of the number
+     */
+    public List<Map.Entry<String, Integer>> getTopOutDegree() {
+        return topOutDegree;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Selects nodes with the largest degrees keeping a heap of at most {@code top} nodes.
+     */
+    private static List<Map.Entry<String, Integer>> top(List<DirectedGraph.Node> nodes, int[] degree, int top) {
+        if (top == 0) return Collections.emptyList();
+        // The smallest degree is on the top of the heap, ties are broken by id
+        Comparator<Integer> byDegree = Comparator.<Integer>comparingInt(i -> degree[i])
+                .thenComparing(i -> nodes.get(i).getId(), Comparator.reverseOrder());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(byDegree);
+        for (int i = 0; i < nodes.size(); i++) {
+            heap.add(i);
+            if (heap.size() > top) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int i = heap.poll();
+            result.add(new AbstractMap.SimpleImmutableEntry<>(nodes.get(i).getId(), degree[i]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package org.natalya_me.algorithm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reachability queries over {@link DirectedGraph}. Each arc is stored in both of its nodes,
+ * so the graph can be walked along and against arcs equally fast, and one graph answers queries in both directions.
+ * Each query visits only the nodes of its answer (and their arcs).
+ */
+public class GraphQueries {
+
+    private GraphQueries() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is forbidden.", GraphQueries.class.getName()));
+    }
+
+    /**
+     * Finds all nodes reachable from the given node.
+     *
+     * @param graph   a directed graph
+     * @param id      start node id
+     * @param forward true to walk along arcs, false to walk against arcs
+     * @return ids of reachable nodes in breadth-first order, the start node is included only if it lies on a cycle;
+     *         an empty list if there is no such node
+     */
+    public static List<String> findReachable(DirectedGraph graph, String id, boolean forward) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        DirectedGraph.Node start = graph.findNode(id);
+        if (start == null) return Collections.emptyList();
+
+        List<String> result = new ArrayList<>();
+        Set<DirectedGraph.Node> visited = new HashSet<>();
+        Deque<DirectedGraph.Node> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            DirectedGraph.Node current = queue.poll();
+            for (DirectedGraph.Node next: forward ? current.getReferenceToIterable() : current.getReferenceFromIterable()) {
+                if (visited.add(next)) {
+                    result.add(next.getId());
+                    queue.add(next);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds a shortest path between the nodes.
+     *
+     * @param graph  a directed graph
+     * @param idFrom source node id
+     * @param idTo   target node id
+     * @return ids of path nodes starting with the source and ending with the target,
+     *         or an empty list if there is no path
+     */
+    public static List<String> findPath(DirectedGraph graph, String idFrom, String idTo) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        DirectedGraph.Node from = graph.findNode(idFrom);
+        DirectedGraph.Node to = graph.findNode(idTo);
+        if (from == null || to == null) return Collections.emptyList();
+        if (from == to) return Collections.singletonList(from.getId());
+
+        // Node from which each visited node was reached
+        Map<DirectedGraph.Node, DirectedGraph.Node> parents = new HashMap<>();
+        Deque<DirectedGraph.Node> queue = new ArrayDeque<>();
+        parents.put(from, null);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            DirectedGraph.Node current = queue.poll();
+            for (DirectedGraph.Node next: current.getReferenceToIterable()) {
+                if (parents.containsKey(next)) continue;
+                parents.put(next, current);
+                if (next == to) {
+                    List<String> path = new ArrayList<>();
+                    for (DirectedGraph.Node n = to; n != null; n = parents.get(n)) {
+                        path.add(n.getId());
+                    }
+                    Collections.reverse(path);
+                    return path;
+                }
+                queue.add(next);
+            }
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,182 @@
+package org.natalya_me.algorithm;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact versioned binary format of {@link DirectedGraph}.
+ * <p>
+ * Format (numbers marked as varint are unsigned LEB128 values):
+ * <pre>
+ * magic, version             int, int
+ * node count                 varint
+ * string table               for each node id in natural order:
+ *                            varint length of the prefix shared with the previous id (in UTF-8 bytes),
+ *                            varint length of the rest, UTF-8 bytes of the rest
+ * adjacency                  for each node in the same order: varint number of outgoing arcs,
+ *                            target indices in ascending order, the first one as is and others as a difference
+ *                            with the previous one (varint)
+ * </pre>
+ * Ids of files from one directory share long prefixes and arcs mostly connect close nodes,
+ * so the snapshot is much smaller than the plain list of arcs and is read in a single sequential pass.
+ */
+public class GraphSnapshot {
+
+    private static final int MAGIC = 0x46534753;
+    private static final int VERSION = 1;
+
+    private final DirectedGraph graph;
+    private final List<String> ids;
+
+    private GraphSnapshot(DirectedGraph graph, List<String> ids) {
+        this.graph = graph;
+        this.ids = ids;
+    }
+
+    /**
+     * @return the graph read from a snapshot
+     */
+    public DirectedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return node ids in the order of the snapshot string table (natural order of ids)
+     */
+    public List<String> getIds() {
+        return ids;
+    }
+
+    /**
+     * Writes the graph.
+     *
+     * @param graph a directed graph
+     * @param out   destination
+     * @return node ids in the order they were written (natural order of ids)
+     * @throws IOException if writing fails
+     */
+    public static List<String> write(DirectedGraph graph, DataOutput out) throws IOException {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        List<DirectedGraph.Node> nodes = new ArrayList<>(graph.getNodes(null));
+        nodes.sort((n1, n2) -> n1.getId().compareTo(n2.getId()));
+        Map<DirectedGraph.Node, Integer> index = new HashMap<>();
+        List<String> ids = new ArrayList<>(nodes.size());
+        for (DirectedGraph.Node n: nodes) {
+            index.put(n, ids.size());
+            ids.add(n.getId());
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeVarInt(out, nodes.size());
+        byte[] previous = new byte[0];
+        for (String id: ids) {
+            byte[] current = id.getBytes(StandardCharsets.UTF_8);
+            int prefix = 0;
+            int limit = Math.min(previous.length, current.length);
+            while (prefix < limit && previous[prefix] == current[prefix]) {
+                prefix++;
+            }
+            writeVarInt(out, prefix);
+            writeVarInt(out, current.length - prefix);
+            out.write(current, prefix, current.length - prefix);
+            previous = current;
+        }
+        for (DirectedGraph.Node n: nodes) {
+            int k = 0;
+            for (DirectedGraph.Node ignored: n.getReferenceToIterable()) {
+                k++;
+            }
+            int[] targets = new int[k];
+            k = 0;
+            for (DirectedGraph.Node to: n.getReferenceToIterable()) {
+                targets[k++] = index.get(to);
+            }
+            Arrays.sort(targets);
+            writeVarInt(out, targets.length);
+            int last = 0;
+            for (int to: targets) {
+                writeVarInt(out, to - last);
+                last = to;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Reads a graph written by {@link #write(DirectedGraph, DataOutput)}.
+     *
+     * @param in source
+     * @return the graph with the list of its node ids
+     * @throws IOException if reading fails or the data has an unsupported format
+     */
+    public static GraphSnapshot read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a graph snapshot: wrong magic number.");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported graph snapshot version %d.", version));
+        }
+        int size = readVarInt(in);
+        DirectedGraph graph = new DirectedGraph();
+        List<String> ids = new ArrayList<>(size);
+        byte[] previous = new byte[0];
+        for (int i = 0; i < size; i++) {
+            int prefix = readVarInt(in);
+            int rest = readVarInt(in);
+            if (prefix > previous.length) {
+                throw new IOException("Corrupted graph snapshot: wrong prefix length.");
+            }
+            byte[] current = Arrays.copyOf(previous, prefix + rest);
+            in.readFully(current, prefix, rest);
+            String id = new String(current, StandardCharsets.UTF_8);
+            graph.addNode(id);
+            ids.add(id);
+            previous = current;
+        }
+        for (String from: ids) {
+            int degree = readVarInt(in);
+            int to = 0;
+            for (int k = 0; k < degree; k++) {
+                to += readVarInt(in);
+                if (to >= size) {
+                    throw new IOException("Corrupted graph snapshot: wrong node index.");
+                }
+                graph.addArc(from, ids.get(to));
+            }
+        }
+        return new GraphSnapshot(graph, Collections.unmodifiableList(ids));
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) break;
+                return value;
+            }
+        }
+        throw new IOException("Corrupted graph snapshot: malformed number.");
+    }
+}
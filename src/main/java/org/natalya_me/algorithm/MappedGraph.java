@@ -0,0 +1,404 @@
+package org.natalya_me.algorithm;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only directed graph stored in a memory-mapped file.
+ * Node table and adjacency arrays live outside the java heap, so heap usage doesn't depend on the graph size.
+ * A graph file, once created, can be reopened with {@link #open(Path)} without rebuilding the graph.
+ * <p>
+ * Nodes are addressed by an index in range [0, size). Indices follow the natural order of node ids,
+ * which allows finding a node by id with a binary search.
+ * <p>
+ * File layout (all numbers are big-endian):
+ * <pre>
+ * header:      magic, version, node count, arc count, positions of the following sections
+ * id offsets:  long[nodeCount + 1], offsets of node ids in the id bytes section
+ * id bytes:    UTF-8 encoded node ids
+ * out offsets: long[nodeCount + 1], offsets of outgoing arcs of each node in the out targets section
+ * out targets: int[arcCount], target node indices sorted within each node
+ * in offsets:  long[nodeCount + 1], offsets of incoming arcs of each node in the in sources section
+ * in sources:  int[arcCount], source node indices sorted within each node
+ * </pre>
+ * Thread safe for reading.
+ */
+public class MappedGraph implements Closeable {
+
+    private static final int MAGIC = 0x46534D47;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 72;
+
+    private final FileChannel channel;
+    private final MappedRegion region;
+    private final int nodeCount;
+    private final long arcCount;
+    private final long idOffsetsPos;
+    private final long idBytesPos;
+    private final long outOffsetsPos;
+    private final long outTargetsPos;
+    private final long inOffsetsPos;
+    private final long inSourcesPos;
+
+    /**
+     * Writes the graph into the file and opens it. The node table and adjacency arrays are prepared on the heap first,
+     * so a graph that doesn't fit into memory should be written with {@link ExternalGraphBuilder} instead.
+     * Note that nodes for EACH id in the map are created, not only key ids.
+     *
+     * @param file          graph file path, an existing file is overwritten
+     * @param adjacencyList Map of node ids, there key is a source node id and value is a collection of all target ids for the key.
+     * @return an opened instance of {@link MappedGraph}
+     * @param <T> container type
+     * @throws IOException if the file cannot be written or mapped
+     */
+    public static <T extends Collection<String>> MappedGraph create(Path file, Map<String, T> adjacencyList) throws IOException {
+        Map<String, Integer> index = new HashMap<>();
+        for (Map.Entry<String, T> e: adjacencyList.entrySet()) {
+            index.putIfAbsent(e.getKey(), 0);
+            for (String toId: e.getValue()) {
+                index.putIfAbsent(toId, 0);
+            }
+        }
+        List<String> ids = new ArrayList<>(index.keySet());
+        Collections.sort(ids);
+        for (int i = 0; i < ids.size(); i++) {
+            index.put(ids.get(i), i);
+        }
+        int[][] targets = new int[ids.size()][];
+        for (int i = 0; i < ids.size(); i++) {
+            Collection<String> toIds = adjacencyList.get(ids.get(i));
+            targets[i] = toIds == null ? new int[0] : toIds.stream().mapToInt(index::get).sorted().distinct().toArray();
+        }
+        write(file, ids, targets);
+        return open(file);
+    }
+
+    /**
+     * Writes the graph into the file and opens it.
+     *
+     * @param file  graph file path, an existing file is overwritten
+     * @param graph source graph
+     * @return an opened instance of {@link MappedGraph}
+     * @throws IOException if the file cannot be written or mapped
+     */
+    public static MappedGraph create(Path file, DirectedGraph graph) throws IOException {
+        Map<String, List<String>> adjacencyList = new HashMap<>();
+        for (DirectedGraph.Node n: graph.getNodes(null)) {
+            List<String> toIds = new ArrayList<>();
+            for (DirectedGraph.Node to: n.getReferenceToIterable()) {
+                toIds.add(to.getId());
+            }
+            adjacencyList.put(n.getId(), toIds);
+        }
+        return create(file, adjacencyList);
+    }
+
+    /**
+     * Opens a graph file created earlier.
+     *
+     * @param file graph file path
+     * @return an opened instance of {@link MappedGraph}
+     * @throws IOException if the file cannot be read or has an unsupported format
+     */
+    public static MappedGraph open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedGraph(channel);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private MappedGraph(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            throw new IOException("Not a graph file: the file is too short.");
+        }
+        this.channel = channel;
+        this.region = new MappedRegion(channel);
+        if (region.getInt(0) != MAGIC) {
+            throw new IOException("Not a graph file: wrong magic number.");
+        }
+        int version = region.getInt(4);
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported graph file version %d.", version));
+        }
+        nodeCount = (int) region.getLong(8);
+        arcCount = region.getLong(16);
+        idOffsetsPos = region.getLong(24);
+        idBytesPos = region.getLong(32);
+        outOffsetsPos = region.getLong(40);
+        outTargetsPos = region.getLong(48);
+        inOffsetsPos = region.getLong(56);
+        inSourcesPos = region.getLong(64);
+    }
+
+    /**
+     * @return number of nodes
+     */
+    public int size() {
+        return nodeCount;
+    }
+
+    /**
+     * Checks if there are no nodes in the graph.
+     */
+    public boolean isEmpty() {
+        return nodeCount == 0;
+    }
+
+    /**
+     * @return number of arcs
+     */
+    public long arcCount() {
+        return arcCount;
+    }
+
+    /**
+     * @param node node index
+     * @return     node id
+     */
+    public String getId(int node) {
+        long start = region.getLong(idOffsetsPos + 8L * node);
+        long end = region.getLong(idOffsetsPos + 8L * (node + 1));
+        byte[] bytes = new byte[(int) (end - start)];
+        region.getBytes(idBytesPos + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds a node index by id.
+     *
+     * @param id node id
+     * @return   node index, or -1 if there is no such node
+     */
+    public int indexOf(String id) {
+        if (id == null) return -1;
+        int low = 0;
+        int high = nodeCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = getId(mid).compareTo(id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if there is a node with the given id in the graph.
+     */
+    public boolean hasNode(String id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Checks if there is an arc between nodes with the given ids.
+     */
+    public boolean hasArc(String idFrom, String idTo) {
+        int from = indexOf(idFrom);
+        if (from < 0) return false;
+        int to = indexOf(idTo);
+        if (to < 0) return false;
+        for (int k = 0; k < getOutDegree(from); k++) {
+            if (getOutArc(from, k) == to) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of outgoing arcs of the node
+     */
+    public int getOutDegree(int node) {
+        return (int) (region.getLong(outOffsetsPos + 8L * (node + 1)) - region.getLong(outOffsetsPos + 8L * node));
+    }
+
+    /**
+     * @param node node index
+     * @param k    arc number in range [0, out degree)
+     * @return     index of the target node of the k-th outgoing arc
+     */
+    public int getOutArc(int node, int k) {
+        return region.getInt(outTargetsPos + 4L * (region.getLong(outOffsetsPos + 8L * node) + k));
+    }
+
+    /**
+     * @return number of incoming arcs of the node
+     */
+    public int getInDegree(int node) {
+        return (int) (region.getLong(inOffsetsPos + 8L * (node + 1)) - region.getLong(inOffsetsPos + 8L * node));
+    }
+
+    /**
+     * @param node node index
+     * @param k    arc number in range [0, in degree)
+     * @return     index of the source node of the k-th incoming arc
+     */
+    public int getInArc(int node, int k) {
+        return region.getInt(inSourcesPos + 4L * (region.getLong(inOffsetsPos + 8L * node) + k));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes a graph file.
+     *
+     * @param file    graph file path
+     * @param ids     node ids in their natural order
+     * @param targets sorted target indices for each node
+     */
+    private static void write(Path file, List<String> ids, int[][] targets) throws IOException {
+        int n = ids.size();
+        long arcs = 0;
+        int[] inDegree = new int[n];
+        for (int[] t: targets) {
+            arcs += t.length;
+            for (int to: t) {
+                inDegree[to]++;
+            }
+        }
+        // Incoming arcs are collected from outgoing ones, sources come in ascending order
+        int[][] sources = new int[n][];
+        for (int i = 0; i < n; i++) {
+            sources[i] = new int[inDegree[i]];
+        }
+        Arrays.fill(inDegree, 0);
+        for (int from = 0; from < n; from++) {
+            for (int to: targets[from]) {
+                sources[to][inDegree[to]++] = from;
+            }
+        }
+        byte[][] encodedIds = new byte[n][];
+        long idBytes = 0;
+        for (int i = 0; i < n; i++) {
+            encodedIds[i] = ids.get(i).getBytes(StandardCharsets.UTF_8);
+            idBytes += encodedIds[i].length;
+        }
+
+        long idOffsetsPos = HEADER_SIZE;
+        long idBytesPos = idOffsetsPos + 8L * (n + 1);
+        long outOffsetsPos = align(idBytesPos + idBytes);
+        long outTargetsPos = outOffsetsPos + 8L * (n + 1);
+        long inOffsetsPos = align(outTargetsPos + 4L * arcs);
+        long inSourcesPos = inOffsetsPos + 8L * (n + 1);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(n);
+            out.writeLong(arcs);
+            out.writeLong(idOffsetsPos);
+            out.writeLong(idBytesPos);
+            out.writeLong(outOffsetsPos);
+            out.writeLong(outTargetsPos);
+            out.writeLong(inOffsetsPos);
+            out.writeLong(inSourcesPos);
+
+            writeOffsets(out, encodedIds);
+            for (byte[] id: encodedIds) {
+                out.write(id);
+            }
+            pad(out, idBytesPos + idBytes);
+            writeOffsets(out, targets);
+            for (int[] t: targets) {
+                for (int to: t) {
+                    out.writeInt(to);
+                }
+            }
+            pad(out, outTargetsPos + 4L * arcs);
+            writeOffsets(out, sources);
+            for (int[] s: sources) {
+                for (int from: s) {
+                    out.writeInt(from);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a graph file from sections prepared in separate files, see {@link ExternalGraphBuilder}.
+     *
+     * @param file        graph file path
+     * @param nodeCount   number of nodes
+     * @param arcCount    number of arcs
+     * @param idByteCount size of the id bytes section
+     * @param sections    files with id offsets, id bytes, out offsets, out targets, in offsets and in sources
+     */
+    static void write(Path file, int nodeCount, long arcCount, long idByteCount, Path... sections) throws IOException {
+        long idOffsetsPos = HEADER_SIZE;
+        long idBytesPos = idOffsetsPos + 8L * (nodeCount + 1);
+        long outOffsetsPos = align(idBytesPos + idByteCount);
+        long outTargetsPos = outOffsetsPos + 8L * (nodeCount + 1);
+        long inOffsetsPos = align(outTargetsPos + 4L * arcCount);
+        long inSourcesPos = inOffsetsPos + 8L * (nodeCount + 1);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(nodeCount);
+            out.writeLong(arcCount);
+            out.writeLong(idOffsetsPos);
+            out.writeLong(idBytesPos);
+            out.writeLong(outOffsetsPos);
+            out.writeLong(outTargetsPos);
+            out.writeLong(inOffsetsPos);
+            out.writeLong(inSourcesPos);
+            long position = HEADER_SIZE;
+            for (Path section: sections) {
+                position += Files.copy(section, out);
+                pad(out, position);
+                position = align(position);
+            }
+        }
+    }
+
+    private static void writeOffsets(DataOutputStream out, byte[][] items) throws IOException {
+        long offset = 0;
+        out.writeLong(offset);
+        for (byte[] item: items) {
+            offset += item.length;
+            out.writeLong(offset);
+        }
+    }
+
+    private static void writeOffsets(DataOutputStream out, int[][] items) throws IOException {
+        long offset = 0;
+        out.writeLong(offset);
+        for (int[] item: items) {
+            offset += item.length;
+            out.writeLong(offset);
+        }
+    }
+
+    private static void pad(DataOutputStream out, long position) throws IOException {
+        for (long i = position; i < align(position); i++) {
+            out.writeByte(0);
+        }
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,75 @@
+package org.natalya_me.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Array of int values kept in a temporary memory-mapped file instead of the heap, so the operating system
+ * can page it out under memory pressure. The file is removed as soon as it is mapped, the mapping itself
+ * is released together with the array.
+ * Like {@link MappedRegion}, the file is mapped as a sequence of segments of at most 1 GB.
+ */
+class MappedIntArray {
+
+    private static final int SEGMENT_SHIFT = 28;
+    private static final int SEGMENT_LENGTH = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_LENGTH - 1;
+    private static final int MAX_DIRECT_LENGTH = Integer.MAX_VALUE / 4;
+
+    private final IntBuffer[] segments;
+    private final int length;
+
+    /**
+     * Creates an array filled with zeros.
+     *
+     * @param directory directory for the temporary file
+     * @param length    number of elements
+     * @throws IOException if the file cannot be created or mapped
+     */
+    MappedIntArray(Path directory, int length) throws IOException {
+        this.length = length;
+        int count = (int) (((long) length + SEGMENT_LENGTH - 1) >>> SEGMENT_SHIFT);
+        segments = new IntBuffer[count];
+        Path file = Files.createTempFile(directory, "ints", ".tmp");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+            for (int i = 0; i < count; i++) {
+                long position = (long) i << SEGMENT_SHIFT;
+                long size = Math.min(SEGMENT_LENGTH, length - position);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, 4 * position, 4 * size).asIntBuffer();
+            }
+        }
+    }
+
+    /**
+     * Allocates a direct buffer of int values outside the heap, not backed by a file. A direct buffer is addressed
+     * by an int byte position, so it holds less than 2^29 values; larger arrays must be created as {@link MappedIntArray}.
+     *
+     * @param length number of elements
+     * @return buffer filled with zeros
+     * @throws IllegalArgumentException if the buffer would exceed 2 GB
+     */
+    static IntBuffer allocateDirect(int length) {
+        if (length > MAX_DIRECT_LENGTH) {
+            throw new IllegalArgumentException(String.format("%d values don't fit into a direct buffer, at most %d are supported; "
+                                                             + "sort such a graph with external sorting.", length, MAX_DIRECT_LENGTH));
+        }
+        return ByteBuffer.allocateDirect(4 * length).asIntBuffer();
+    }
+
+    int get(int index) {
+        return segments[index >>> SEGMENT_SHIFT].get(index & SEGMENT_MASK);
+    }
+
+    void set(int index, int value) {
+        segments[index >>> SEGMENT_SHIFT].put(index & SEGMENT_MASK, value);
+    }
+
+    int length() {
+        return length;
+    }
+}
@@ -0,0 +1,62 @@
+package org.natalya_me.algorithm;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only view of a file region mapped into memory.
+ * A single {@link MappedByteBuffer} cannot be larger than 2 GB, so the region is mapped as a sequence of segments.
+ * Segment size is a multiple of 8, thus aligned int and long values never cross a segment border.
+ */
+class MappedRegion {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Maps the whole file available through the channel.
+     *
+     * @param channel file channel opened for reading
+     * @throws IOException if the file cannot be mapped
+     */
+    MappedRegion(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int count = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long position = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+        }
+    }
+
+    int getInt(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+    long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Copies bytes of the region into the array. The range may cross a segment border.
+     */
+    void getBytes(long position, byte[] dst) {
+        int copied = 0;
+        while (copied < dst.length) {
+            // Duplicate keeps the shared segment position untouched
+            ByteBuffer segment = ((ByteBuffer) segments[(int) (position >>> SEGMENT_SHIFT)]).duplicate();
+            int offset = (int) (position & SEGMENT_MASK);
+            int length = Math.min(dst.length - copied, segment.limit() - offset);
+            ((Buffer) segment).position(offset);
+            segment.get(dst, copied, length);
+            copied += length;
+            position += length;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.natalya_me.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Class for processing nodes sorted by levels (see {@link TopologicalOrdering#sortByLevels(DirectedGraph)}) concurrently.
+ * Nodes of one level are processed in parallel, and the next level starts only after the whole previous level is done,
+ * so each node is processed after all the nodes it depends on.
+ */
+public class ParallelLevelProcessing {
+
+    private ParallelLevelProcessing() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is forbidden.", ParallelLevelProcessing.class.getName()));
+    }
+
+    /**
+     * Processes the levels with a thread pool of the given size, the pool is shut down afterwards.
+     *
+     * @param levels      node ids grouped into levels
+     * @param action      action applied to each node id, must be thread safe
+     * @param parallelism number of threads
+     * @throws ExecutionException   if the action failed for any node, the following levels are not processed
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    public static void process(List<List<String>> levels, Consumer<? super String> action, int parallelism)
+            throws ExecutionException, InterruptedException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            process(levels, action, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Processes the levels with the given executor.
+     * Tasks of a level are submitted in the order of the level (i.e. by the sorting comparator).
+     *
+     * @param levels   node ids grouped into levels
+     * @param action   action applied to each node id, must be thread safe
+     * @param executor executor for running the action, it is not shut down
+     * @throws ExecutionException   if the action failed for any node, the following levels are not processed
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    public static void process(List<List<String>> levels, Consumer<? super String> action, ExecutorService executor)
+            throws ExecutionException, InterruptedException {
+        if (levels == null || action == null || executor == null) {
+            throw new IllegalArgumentException("levels, action and executor cannot be null");
+        }
+        for (List<String> level: levels) {
+            List<Future<?>> futures = new ArrayList<>(level.size());
+            for (String id: level) {
+                futures.add(executor.submit(() -> action.accept(id)));
+            }
+            try {
+                for (Future<?> future: futures) {
+                    future.get();
+                }
+            } catch (ExecutionException | InterruptedException ex) {
+                for (Future<?> future: futures) {
+                    future.cancel(true);
+                }
+                throw ex;
+            }
+        }
+    }
+}
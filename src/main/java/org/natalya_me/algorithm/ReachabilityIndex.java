@@ -0,0 +1,99 @@
+package org.natalya_me.algorithm;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed transitive closure of a directed acyclic graph.
+ * Nodes are numbered in a topological order, and for each node two bit sets are stored: numbers of nodes reachable
+ * from it and numbers of nodes it is reachable from. A reachability check takes constant time.
+ * <p>
+ * The index takes about V * V / 4 bytes of memory for V nodes, so it suits repeated queries to graphs of moderate size.
+ * The index doesn't follow modifications of the graph.
+ */
+public class ReachabilityIndex {
+
+    private final Map<String, Integer> numbers = new HashMap<>();
+    private final List<String> ids;
+    private final BitSet[] descendants;
+    private final BitSet[] ancestors;
+
+    /**
+     * Builds the index.
+     *
+     * @param graph a directed acyclic graph
+     *
+     * @throws IllegalArgumentException if the graph has a cycle
+     */
+    public ReachabilityIndex(DirectedGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        TopologicalOrdering.TopologicalOrderingResult sorted = new TopologicalOrdering(Comparator.comparing(DirectedGraph.Node::getId)).sort(graph);
+        if (sorted.getType() == TopologicalOrdering.TopologicalOrderingResult.TYPE.CYCLE) {
+            throw new IllegalArgumentException("The graph has a cycle: " + String.join(" <- ", sorted.getResult()));
+        }
+        ids = sorted.getResult();
+        int size = ids.size();
+        DirectedGraph.Node[] nodes = new DirectedGraph.Node[size];
+        for (int i = 0; i < size; i++) {
+            numbers.put(ids.get(i), i);
+            nodes[i] = graph.findNode(ids.get(i));
+        }
+        // Arcs go from lower numbers to higher ones, so each set is built from already completed sets
+        descendants = new BitSet[size];
+        for (int i = size - 1; i >= 0; i--) {
+            descendants[i] = new BitSet(size);
+            for (DirectedGraph.Node to: nodes[i].getReferenceToIterable()) {
+                int k = numbers.get(to.getId());
+                descendants[i].set(k);
+                descendants[i].or(descendants[k]);
+            }
+        }
+        ancestors = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            ancestors[i] = new BitSet(size);
+            for (DirectedGraph.Node from: nodes[i].getReferenceFromIterable()) {
+                int k = numbers.get(from.getId());
+                ancestors[i].set(k);
+                ancestors[i].or(ancestors[k]);
+            }
+        }
+    }
+
+    /**
+     * Checks if there is a path between the nodes.
+     *
+     * @param idFrom source node id
+     * @param idTo   target node id
+     * @return true if both nodes exist and the target is reachable from the source
+     */
+    public boolean reaches(String idFrom, String idTo) {
+        Integer from = numbers.get(idFrom);
+        Integer to = numbers.get(idTo);
+        return from != null && to != null && descendants[from].get(to);
+    }
+
+    /**
+     * Finds all nodes reachable from the given node.
+     *
+     * @param id      start node id
+     * @param forward true to walk along arcs, false to walk against arcs
+     * @return ids of reachable nodes in topological order, or an empty list if there is no such node
+     */
+    public List<String> findReachable(String id, boolean forward) {
+        Integer number = numbers.get(id);
+        if (number == null) return Collections.emptyList();
+        BitSet reachable = forward ? descendants[number] : ancestors[number];
+        List<String> result = new ArrayList<>(reachable.cardinality());
+        for (int i = reachable.nextSetBit(0); i >= 0; i = reachable.nextSetBit(i + 1)) {
+            result.add(ids.get(i));
+        }
+        return result;
+    }
+}
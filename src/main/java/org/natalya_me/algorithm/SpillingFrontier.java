@@ -0,0 +1,172 @@
+package org.natalya_me.algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Priority queue of non-negative int values that keeps a bounded number of values in memory.
+ * When the in-memory heap overflows, its larger half is written to a sorted run file. The smallest value is then
+ * the smallest one among the heap and the first unread values of the runs. Runs are merged into one when there
+ * are more than {@value #MAX_RUNS} of them.
+ * <p>
+ * The queue is not thread safe. Run files are created in the given directory and removed by {@link #close()}.
+ */
+class SpillingFrontier implements Closeable {
+
+    private static final int MAX_RUNS = 16;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final int capacity;
+    private final PriorityQueue<Integer> heap = new PriorityQueue<>();
+    private final List<Run> runs = new ArrayList<>();
+    private long size;
+
+    /**
+     * @param directory directory for run files
+     * @param capacity  maximum number of values kept in memory, at least 2
+     */
+    SpillingFrontier(Path directory, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2.");
+        }
+        this.directory = directory;
+        this.capacity = capacity;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(int value) throws IOException {
+        heap.add(value);
+        size++;
+        if (heap.size() > capacity) {
+            spill();
+        }
+    }
+
+    /**
+     * Removes the smallest value.
+     *
+     * @return the smallest value, or -1 if the queue is empty
+     */
+    int poll() throws IOException {
+        if (size == 0) return -1;
+        Run smallest = null;
+        for (Run run: runs) {
+            if (smallest == null || run.head < smallest.head) {
+                smallest = run;
+            }
+        }
+        size--;
+        if (smallest == null || (!heap.isEmpty() && heap.peek() < smallest.head)) {
+            return heap.poll();
+        }
+        int value = smallest.head;
+        if (!smallest.advance()) {
+            runs.remove(smallest);
+            smallest.close();
+        }
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Run run: runs) {
+            run.close();
+        }
+        runs.clear();
+        heap.clear();
+        size = 0;
+    }
+
+    private void spill() throws IOException {
+        int[] values = new int[heap.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = heap.poll();
+        }
+        // The smaller half stays in memory because it is polled first
+        int keep = values.length / 2;
+        for (int i = 0; i < keep; i++) {
+            heap.add(values[i]);
+        }
+        Path file = Files.createTempFile(directory, "frontier", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE))) {
+            for (int i = keep; i < values.length; i++) {
+                out.writeInt(values[i]);
+            }
+        }
+        runs.add(new Run(file, values.length - keep));
+        if (runs.size() > MAX_RUNS) {
+            mergeRuns();
+        }
+    }
+
+    private void mergeRuns() throws IOException {
+        Path file = Files.createTempFile(directory, "frontier", ".tmp");
+        long count = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE))) {
+            while (!runs.isEmpty()) {
+                Run smallest = runs.get(0);
+                for (Run run: runs) {
+                    if (run.head < smallest.head) {
+                        smallest = run;
+                    }
+                }
+                out.writeInt(smallest.head);
+                count++;
+                if (!smallest.advance()) {
+                    runs.remove(smallest);
+                    smallest.close();
+                }
+            }
+        }
+        runs.add(new Run(file, count));
+    }
+
+    /**
+     * Sorted run file with its first unread value.
+     */
+    private static class Run implements Closeable {
+
+        private final Path file;
+        private final DataInputStream in;
+        private long remaining;
+        private int head;
+
+        private Run(Path file, long size) throws IOException {
+            this.file = file;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER_SIZE));
+            this.remaining = size;
+            advance();
+        }
+
+        /**
+         * Reads the next value into the head.
+         *
+         * @return false if there are no more values
+         */
+        private boolean advance() throws IOException {
+            if (remaining == 0) return false;
+            remaining--;
+            head = in.readInt();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package org.natalya_me.algorithm;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Class for sorting directed graph nodes using topological ordering algorithm.
@@ -14,6 +26,20 @@ import java.util.TreeSet;
  */
 public class TopologicalOrdering {
 
+    // Binary representation of nodes with their indices for ranking
+    private static final ExternalSorter.Codec<Map.Entry<DirectedGraph.Node, Integer>> RANK_CODEC = new ExternalSorter.Codec<Map.Entry<DirectedGraph.Node, Integer>>() {
+        @Override
+        public void write(DataOutput out, Map.Entry<DirectedGraph.Node, Integer> e) throws IOException {
+            out.writeUTF(e.getKey().getId());
+            out.writeInt(e.getValue());
+        }
+
+        @Override
+        public Map.Entry<DirectedGraph.Node, Integer> read(DataInput in) throws IOException {
+            return new AbstractMap.SimpleImmutableEntry<>(new DirectedGraph.Node(in.readUTF()), in.readInt());
+        }
+    };
+
     private final Comparator<? super DirectedGraph.Node> comparator;
 
     public TopologicalOrdering(Comparator<? super DirectedGraph.Node> comparator) {
@@ -56,6 +82,218 @@ public class TopologicalOrdering {
         return new TopologicalOrderingResult(TopologicalOrderingResult.TYPE.ORDER, resultList);
     }
 
+    /**
+     * Sorts the graph and groups nodes into levels: the first level consists of nodes without incoming arcs,
+     * and each next level consists of nodes whose incoming arcs come only from previous levels.
+     * Therefore, nodes of one level don't depend on each other and can be processed concurrently.
+     * Nodes within a level are sorted by the comparator.
+     *
+     * @param graph a directed graph, it is not modified
+     * @return sorting result, its flat order lists the levels one after another
+     */
+    public LevelOrderingResult sortByLevels(DirectedGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        if (graph.isEmpty()) return LevelOrderingResult.EMPTY_LEVEL_RESULT;
+
+        // Number of incoming arcs from the nodes that are not placed to a level yet
+        Map<DirectedGraph.Node, Integer> inDegree = new HashMap<>();
+        List<DirectedGraph.Node> level = new ArrayList<>();
+        for (DirectedGraph.Node node: graph.getNodes(null)) {
+            int degree = 0;
+            for (DirectedGraph.Node ignored: node.getReferenceFromIterable()) {
+                degree++;
+            }
+            inDegree.put(node, degree);
+            if (degree == 0) {
+                level.add(node);
+            }
+        }
+
+        List<List<String>> levels = new ArrayList<>();
+        int count = 0;
+        while (!level.isEmpty()) {
+            level.sort(comparator);
+            List<String> ids = new ArrayList<>(level.size());
+            List<DirectedGraph.Node> nextLevel = new ArrayList<>();
+            for (DirectedGraph.Node node: level) {
+                ids.add(node.getId());
+                for (DirectedGraph.Node referenceTo: node.getReferenceToIterable()) {
+                    if (inDegree.merge(referenceTo, -1, Integer::sum) == 0) {
+                        nextLevel.add(referenceTo);
+                    }
+                }
+            }
+            levels.add(ids);
+            count += ids.size();
+            level = nextLevel;
+        }
+        if (count < graph.size()) {
+            return new LevelOrderingResult(TopologicalOrderingResult.TYPE.CYCLE, CycleDetection.findCycle(graph), Collections.emptyList());
+        }
+        List<String> resultList = new ArrayList<>(count);
+        for (List<String> ids: levels) {
+            resultList.addAll(ids);
+        }
+        return new LevelOrderingResult(TopologicalOrderingResult.TYPE.ORDER, resultList, levels);
+    }
+
+    /**
+     * Sorts a graph stored in a memory-mapped file.
+     * The graph is not copied: remaining in-degrees and the resulting order are kept in direct buffers outside the heap,
+     * and the result list reads node ids from the graph on demand. Therefore, the graph must stay open while the result is used.
+     * Only the nodes that are ready to be inserted are kept on the heap.
+     *
+     * @param graph a graph stored in a memory-mapped file
+     * @return sorting result
+     * @throws IllegalArgumentException if the graph has 2^29 nodes or more, which don't fit into direct buffers;
+     *                                  such a graph can be sorted with {@link #sortExternal}
+     */
+    public TopologicalOrderingResult sortMapped(MappedGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        if (graph.isEmpty()) return TopologicalOrderingResult.EMPTY_RESULT;
+
+        int size = graph.size();
+        // Number of incoming arcs from the nodes that are not inserted yet
+        IntBuffer inDegree = MappedIntArray.allocateDirect(size);
+        // Indices of sorted nodes
+        IntBuffer order = MappedIntArray.allocateDirect(size);
+        // Nodes that don't have incoming arcs, sorted by the comparator and mapped to their indices
+        TreeMap<DirectedGraph.Node, Integer> nodesToInsert = new TreeMap<>(comparator);
+        for (int i = 0; i < size; i++) {
+            int degree = graph.getInDegree(i);
+            inDegree.put(i, degree);
+            if (degree == 0) {
+                nodesToInsert.put(new DirectedGraph.Node(graph.getId(i)), i);
+            }
+        }
+
+        int count = 0;
+        while (!nodesToInsert.isEmpty()) {
+            int node = nodesToInsert.pollFirstEntry().getValue();
+            order.put(count++, node);
+            for (int k = 0; k < graph.getOutDegree(node); k++) {
+                int referenceTo = graph.getOutArc(node, k);
+                int degree = inDegree.get(referenceTo) - 1;
+                inDegree.put(referenceTo, degree);
+                if (degree == 0) {
+                    nodesToInsert.put(new DirectedGraph.Node(graph.getId(referenceTo)), referenceTo);
+                }
+            }
+        }
+        if (count < size) {
+            return new TopologicalOrderingResult(TopologicalOrderingResult.TYPE.CYCLE, CycleDetection.findCycleMapped(graph));
+        }
+        return new TopologicalOrderingResult(TopologicalOrderingResult.TYPE.ORDER, new MappedOrder(graph, order::get, count));
+    }
+
+    /**
+     * Sorts a graph stored in a memory-mapped file using a bounded amount of memory.
+     * Unlike {@link #sortMapped(MappedGraph)}, working arrays are kept in temporary memory-mapped files,
+     * and at most {@code bufferSize} nodes that are ready to be inserted are kept in memory, the rest are spilled to disk.
+     * <p>
+     * To compare ready nodes without reading their ids, nodes are first ranked by the comparator with an external sort.
+     * The smallest ready rank is inserted next, so the result is the same as the one of {@link #sort(DirectedGraph)}
+     * provided the comparator distinguishes all nodes.
+     * The graph must stay open while the result is used.
+     *
+     * @param graph      a graph stored in a memory-mapped file, see {@link ExternalGraphBuilder}
+     * @param directory  directory for temporary files
+     * @param bufferSize maximum number of nodes kept in memory, at least 2
+     * @return sorting result
+     * @throws IOException if temporary files cannot be written or read
+     */
+    public TopologicalOrderingResult sortExternal(MappedGraph graph, Path directory, int bufferSize) throws IOException {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        if (graph.isEmpty()) return TopologicalOrderingResult.EMPTY_RESULT;
+
+        int size = graph.size();
+        // Node index for each rank and rank for each node index
+        MappedIntArray byRank = new MappedIntArray(directory, size);
+        MappedIntArray rank = new MappedIntArray(directory, size);
+        try (ExternalSorter<Map.Entry<DirectedGraph.Node, Integer>> sorter = new ExternalSorter<>(directory,
+                Map.Entry.comparingByKey(comparator), RANK_CODEC, bufferSize)) {
+            for (int i = 0; i < size; i++) {
+                sorter.add(new AbstractMap.SimpleImmutableEntry<>(new DirectedGraph.Node(graph.getId(i)), i));
+            }
+            try (ExternalSorter.Cursor<Map.Entry<DirectedGraph.Node, Integer>> cursor = sorter.sorted()) {
+                int r = 0;
+                for (Map.Entry<DirectedGraph.Node, Integer> e = cursor.next(); e != null; e = cursor.next()) {
+                    byRank.set(r, e.getValue());
+                    rank.set(e.getValue(), r++);
+                }
+            }
+        }
+
+        // Number of incoming arcs from the nodes that are not inserted yet
+        MappedIntArray inDegree = new MappedIntArray(directory, size);
+        // Indices of sorted nodes
+        MappedIntArray order = new MappedIntArray(directory, size);
+        int count = 0;
+        try (SpillingFrontier nodesToInsert = new SpillingFrontier(directory, bufferSize)) {
+            for (int i = 0; i < size; i++) {
+                int degree = graph.getInDegree(i);
+                inDegree.set(i, degree);
+                if (degree == 0) {
+                    nodesToInsert.add(rank.get(i));
+                }
+            }
+            while (!nodesToInsert.isEmpty()) {
+                int node = byRank.get(nodesToInsert.poll());
+                order.set(count++, node);
+                for (int k = 0; k < graph.getOutDegree(node); k++) {
+                    int referenceTo = graph.getOutArc(node, k);
+                    int degree = inDegree.get(referenceTo) - 1;
+                    inDegree.set(referenceTo, degree);
+                    if (degree == 0) {
+                        nodesToInsert.add(rank.get(referenceTo));
+                    }
+                }
+            }
+        }
+        if (count < size) {
+            return new TopologicalOrderingResult(TopologicalOrderingResult.TYPE.CYCLE, CycleDetection.findCycleMapped(graph));
+        }
+        return new TopologicalOrderingResult(TopologicalOrderingResult.TYPE.ORDER, new MappedOrder(graph, order::get, count));
+    }
+
+    /**
+     * Read-only list of node ids backed by an array of node indices kept outside the heap.
+     */
+    private static class MappedOrder extends AbstractList<String> implements RandomAccess {
+
+        private final MappedGraph graph;
+        private final IntUnaryOperator order;
+        private final int size;
+
+        private MappedOrder(MappedGraph graph, IntUnaryOperator order, int size) {
+            this.graph = graph;
+            this.order = order;
+            this.size = size;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return graph.getId(order.applyAsInt(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
     /**
      * Container for the sorting algorithm result.
      */
@@ -71,7 +309,8 @@ public class TopologicalOrdering {
 
         private TopologicalOrderingResult(TYPE type, List<String> result) {
             this.type = type;
-            this.result = new ArrayList<>(result);
+            // A mapped order is already read-only and is too large to be copied to the heap
+            this.result = result instanceof MappedOrder ? result : new ArrayList<>(result);
         }
 
         public TYPE getType() {
@@ -82,4 +321,27 @@ public class TopologicalOrdering {
             return result;
         }
     }
-}
+
+    /**
+     * Container for the result of sorting by levels.
+     * For a cycle, {@link #getResult()} contains the cycle and there are no levels.
+     */
+    public static class LevelOrderingResult extends TopologicalOrderingResult {
+
+        private static final LevelOrderingResult EMPTY_LEVEL_RESULT = new LevelOrderingResult(TYPE.ORDER, Collections.emptyList(), Collections.emptyList());
+
+        private final List<List<String>> levels;
+
+        private LevelOrderingResult(TYPE type, List<String> result, List<List<String>> levels) {
+            super(type, result);
+            this.levels = levels;
+        }
+
+        /**
+         * @return node ids grouped into levels, each level depends only on the previous ones
+         */
+        public List<List<String>> getLevels() {
+            return levels;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package org.natalya_me.algorithm;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class for finding and removing redundant arcs of a directed acyclic graph, i.e. arcs u -> v such that v is reachable
+ * from u by another path. Removing them doesn't change reachability between nodes, so the set of valid topological
+ * orders stays the same.
+ * <p>
+ * Nodes are numbered in a topological order and processed from the last one. For each node, a bit set of reachable
+ * node numbers is built from the sets of its targets, visiting targets in ascending order of numbers: a target is
+ * redundant if it is already in the set built from the previous targets. A set is released as soon as all the nodes
+ * referencing its node are processed, so only the sets of the current "frontier" are kept in memory.
+ */
+public class TransitiveReduction {
+
+    private TransitiveReduction() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is forbidden.", TransitiveReduction.class.getName()));
+    }
+
+    /**
+     * Finds redundant arcs of the graph.
+     *
+     * @param graph a directed acyclic graph, it is not modified
+     * @return redundant arcs as pairs of source and target ids
+     *
+     * @throws IllegalArgumentException if the graph has a cycle
+     */
+    public static List<Map.Entry<String, String>> findRedundantArcs(DirectedGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("graph cannot be null");
+        }
+        TopologicalOrdering.TopologicalOrderingResult sorted = new TopologicalOrdering(Comparator.comparing(DirectedGraph.Node::getId)).sortByLevels(graph);
+        if (sorted.getType() == TopologicalOrdering.TopologicalOrderingResult.TYPE.CYCLE) {
+            throw new IllegalArgumentException("The graph has a cycle: " + String.join(" <- ", sorted.getResult()));
+        }
+        List<String> ids = sorted.getResult();
+        int size = ids.size();
+        Map<DirectedGraph.Node, Integer> numbers = new HashMap<>();
+        DirectedGraph.Node[] nodes = new DirectedGraph.Node[size];
+        // Number of nodes referencing each node which are not processed yet
+        int[] references = new int[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = graph.findNode(ids.get(i));
+            numbers.put(nodes[i], i);
+        }
+        for (int i = 0; i < size; i++) {
+            for (DirectedGraph.Node ignored: nodes[i].getReferenceFromIterable()) {
+                references[i]++;
+            }
+        }
+
+        List<Map.Entry<String, String>> redundant = new ArrayList<>();
+        BitSet[] reachable = new BitSet[size];
+        List<Integer> targets = new ArrayList<>();
+        for (int i = size - 1; i >= 0; i--) {
+            targets.clear();
+            for (DirectedGraph.Node to: nodes[i].getReferenceToIterable()) {
+                targets.add(numbers.get(to));
+            }
+            targets.sort(null);
+            BitSet current = new BitSet();
+            for (int k: targets) {
+                if (current.get(k)) {
+                    redundant.add(new AbstractMap.SimpleImmutableEntry<>(ids.get(i), ids.get(k)));
+                } else {
+                    current.set(k);
+                    current.or(reachable[k]);
+                }
+                if (--references[k] == 0) {
+                    reachable[k] = null;
+                }
+            }
+            // A node nobody references doesn't need its set
+            reachable[i] = references[i] == 0 ? null : current;
+        }
+        return redundant;
+    }
+
+    /**
+     * Removes redundant arcs from the graph.
+     *
+     * @param graph a directed acyclic graph, it is modified
+     * @return removed arcs as pairs of source and target ids
+     *
+     * @throws IllegalArgumentException if the graph has a cycle
+     */
+    public static List<Map.Entry<String, String>> reduce(DirectedGraph graph) {
+        List<Map.Entry<String, String>> redundant = findRedundantArcs(graph);
+        for (Map.Entry<String, String> arc: redundant) {
+            graph.removeArc(arc.getKey(), arc.getValue());
+        }
+        return redundant;
+    }
+}
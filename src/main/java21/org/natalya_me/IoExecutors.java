@@ -0,0 +1,103 @@
+package org.natalya_me;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility class creating executors for blocking I/O tasks: listing directories, reading files.
+ * This is the Java 21 version of the class: each task gets its own virtual thread, and a semaphore caps the number
+ * of tasks doing I/O at the same time. A blocked virtual thread doesn't hold a platform thread, so the cap may be
+ * much larger than the number of processors.
+ */
+public class IoExecutors {
+
+    private IoExecutors() {
+        throw new UnsupportedOperationException(String.format("Instantiation of class %s is not supported.", IoExecutors.class.getName()));
+    }
+
+    /**
+     * Creates an executor running at most the given number of tasks at the same time.
+     * Virtual threads never prevent the JVM from exiting.
+     *
+     * @param concurrency maximum number of running tasks
+     * @return a new executor, it must be shut down by the caller
+     */
+    public static ExecutorService newExecutor(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive.");
+        }
+        return new CappedExecutor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("io-", 0).factory()), concurrency);
+    }
+
+    /**
+     * @return true if executors of this class run tasks on virtual threads
+     */
+    public static boolean isVirtual() {
+        return true;
+    }
+
+    /**
+     * Executor starting a thread per task, where a task waits for a permit before running.
+     */
+    private static class CappedExecutor extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        private CappedExecutor(ExecutorService delegate, int concurrency) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(concurrency);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException ex) {
+                    // The executor is shut down, a waiting submitted task must not stay incomplete
+                    if (command instanceof Future) {
+                        ((Future<?>) command).cancel(false);
+                    }
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Runs a window of operations, each taking the given time, as if the current limit of them ran at the same time.
+     */
+    private void runWindow(AdaptiveConcurrency concurrency, int operations, long latency) throws InterruptedException {
+        int limit = concurrency.getLimit();
+        for (int done = 0; done < operations; done += limit) {
+            long[] started = new long[Math.min(limit, operations - done)];
+            for (int i = 0; i < started.length; i++) {
+                started[i] = concurrency.acquire();
+            }
+            clock.addAndGet(latency);
+            for (long start: started) {
+                concurrency.release(start, 1);
+            }
+        }
+    }
+
+    @Test
+    void testIncreaseWhileThroughputGrows() throws InterruptedException {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(1, 10, 4, clock::get);
+        assertEquals(1, concurrency.getLimit());
+        // Slow start doubles the limit while latency stays the same
+        runWindow(concurrency, 4, 1000);
+        assertEquals(2, concurrency.getLimit());
+        runWindow(concurrency, 4, 1000);
+        assertEquals(4, concurrency.getLimit());
+        runWindow(concurrency, 8, 1000);
+        assertEquals(8, concurrency.getLimit());
+        runWindow(concurrency, 16, 1000);
+        // The upper bound is never exceeded
+        assertEquals(10, concurrency.getLimit());
+        assertEquals(32, concurrency.getOperations());
+        assertEquals(8e6, concurrency.getThroughput(), 1);
+    }
+
+    @Test
+    void testDecreaseOnCongestion() throws InterruptedException {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(1, 16, 4, clock::get);
+        runWindow(concurrency, 4, 1000);
+        runWindow(concurrency, 4, 1000);
+        runWindow(concurrency, 8, 1000);
+        assertEquals(8, concurrency.getLimit());
+        // Latency more than doubles: the limit is halved, and then it grows by one
+        runWindow(concurrency, 16, 5000);
+        assertEquals(4, concurrency.getLimit());
+        runWindow(concurrency, 8, 1000);
+        assertEquals(5, concurrency.getLimit());
+        runWindow(concurrency, 10, 1000);
+        assertEquals(6, concurrency.getLimit());
+        // Throughput falls with the same latency
+        runWindow(concurrency, 12, 1000);
+        clock.addAndGet(100_000);
+        runWindow(concurrency, 14, 1000);
+        assertEquals(3, concurrency.getLimit());
+    }
+
+    @Test
+    void testFixedBoundsLimitRunningOperations() throws InterruptedException {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(2, 2);
+        long first = concurrency.acquire();
+        concurrency.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiting = new Thread(() -> {
+            try {
+                concurrency.acquire();
+                acquired.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        waiting.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        concurrency.release(first, 1);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(2, concurrency.getLimit());
+    }
+
+    @Test
+    void testIncorrectBounds() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new AdaptiveConcurrency(0, 2));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new AdaptiveConcurrency(3, 2));
+    }
+}
@@ -0,0 +1,34 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.natalya_me.algorithm.DirectedGraph;
+import org.natalya_me.algorithm.GraphAnalytics;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AnalyticsReportTest {
+
+    @Test
+    void testWrite() throws IOException {
+        DirectedGraph g = new DirectedGraph();
+        g.addNode("/root/a.txt");
+        g.addNode("/root/b\"c.txt");
+        g.addArc("/root/a.txt", "/root/b\"c.txt");
+        StringBuilder out = new StringBuilder();
+        AnalyticsReport.write(GraphAnalytics.analyze(g, 1), out);
+        String expected = "{\n"
+                + "  \"files\": 2,\n"
+                + "  \"requirements\": 1,\n"
+                + "  \"acyclic\": true,\n"
+                + "  \"components\": 1,\n"
+                + "  \"depth\": 2,\n"
+                + "  \"criticalChain\": [\"/root/a.txt\", \"/root/b\\\"c.txt\"],\n"
+                + "  \"levelWidths\": [1, 1],\n"
+                + "  \"topFanIn\": [{\"file\": \"/root/a.txt\", \"count\": 1}],\n"
+                + "  \"topFanOut\": [{\"file\": \"/root/b\\\"c.txt\", \"count\": 1}]\n"
+                + "}\n";
+        assertEquals(expected, out.toString());
+    }
+}
@@ -0,0 +1,60 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSaveAndLoad() throws IOException {
+        List<String> files = DependencyReader.listFiles("src/test/resources/dependency_reader_test/");
+        byte[] hash = Checkpoint.orderHash(files);
+        Path file = dir.resolve("target.txt.ckpt");
+        new Checkpoint(hash, 3, 120).save(file);
+        Checkpoint checkpoint = Checkpoint.load(file);
+        assertTrue(checkpoint.matches(hash));
+        assertEquals(3, checkpoint.getCompleted());
+        assertEquals(120, checkpoint.getOffset());
+        // The file is replaced
+        new Checkpoint(hash, 4, 150).save(file);
+        assertEquals(4, Checkpoint.load(file).getCompleted());
+    }
+
+    @Test
+    void testLoadWhenNoFile() throws IOException {
+        assertNull(Checkpoint.load(dir.resolve("no_such_file.ckpt")));
+    }
+
+    @Test
+    void testLoadWhenNotCheckpoint() throws IOException {
+        Path file = Files.write(dir.resolve("text.txt"), "not a checkpoint".getBytes());
+        assertThrowsExactly(IOException.class, () -> Checkpoint.load(file));
+    }
+
+    @Test
+    void testOrderHashDependsOnOrderAndContent() throws IOException {
+        Path first = Files.write(dir.resolve("first.txt"), "first".getBytes());
+        Path second = Files.write(dir.resolve("second.txt"), "second".getBytes());
+        List<String> files = Arrays.asList(first.toString(), second.toString());
+        byte[] hash = Checkpoint.orderHash(files);
+        assertArrayEquals(hash, Checkpoint.orderHash(new ArrayList<>(files)));
+        List<String> reversed = new ArrayList<>(files);
+        Collections.reverse(reversed);
+        assertFalse(new Checkpoint(hash, 0, 0).matches(Checkpoint.orderHash(reversed)));
+        Files.write(second, "second, changed".getBytes());
+        assertFalse(new Checkpoint(hash, 0, 0).matches(Checkpoint.orderHash(files)));
+    }
+}
@@ -0,0 +1,120 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcatenatorTest {
+
+    private final String PATH = "src/test/resources/dependency_reader_test/";
+
+    @Test
+    void testConcatenateScheduledMatchesConcatenate() throws IOException {
+        List<String> files = DependencyReader.listFiles(PATH);
+        Collections.sort(files);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Concatenator.concatenate(files, expected);
+        for (int windowFiles: new int[] {1, 2, 100}) {
+            for (long windowBytes: new long[] {1, 40, 1 << 20}) {
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                List<Path> readOrder = Concatenator.concatenateScheduled(files, actual, windowFiles, windowBytes);
+                assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+                assertEquals(files.size(), readOrder.size());
+                List<String> read = new ArrayList<>();
+                readOrder.forEach(p -> read.add(p.toString()));
+                assertEquals(new HashSet<>(files), new HashSet<>(read));
+            }
+        }
+    }
+
+    @Test
+    void testConcatenateFromStart() throws IOException {
+        List<String> files = DependencyReader.listFiles(PATH);
+        Collections.sort(files);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Concatenator.concatenate(files.subList(2, files.size()), expected);
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        List<Integer> written = new ArrayList<>();
+        Concatenator.concatenate(files, 2, plain, written::add);
+        assertArrayEquals(expected.toByteArray(), plain.toByteArray());
+        assertEquals(Arrays.asList(2, 3, 4), written);
+        ByteArrayOutputStream scheduled = new ByteArrayOutputStream();
+        written.clear();
+        Concatenator.concatenateScheduled(files, 2, scheduled, 2, 1 << 20, written::add);
+        assertArrayEquals(expected.toByteArray(), scheduled.toByteArray());
+        assertEquals(Arrays.asList(2, 3, 4), written);
+    }
+
+    @Test
+    void testConcatenateConcurrentMatchesConcatenate() throws IOException {
+        List<String> files = DependencyReader.listFiles(PATH);
+        Collections.sort(files);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        Concatenator.concatenate(files.subList(1, files.size()), expected);
+        ExecutorService executor = IoExecutors.newExecutor(3);
+        try {
+            for (int windowFiles: new int[] {1, 2, 100}) {
+                // The smallest window is exceeded by every file, so they are copied directly
+                for (long windowBytes: new long[] {1, 40, 1 << 20}) {
+                    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                    List<Integer> written = new ArrayList<>();
+                    Concatenator.concatenateConcurrent(files, 1, actual, windowFiles, windowBytes, executor, written::add);
+                    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+                    assertEquals(Arrays.asList(1, 2, 3, 4), written);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcatenateCompressedFiles(@TempDir Path dir) throws IOException {
+        List<String> files = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            String text = "file " + i + "\n";
+            Path file = dir.resolve("file" + i + ".txt");
+            if (i % 2 == 0) {
+                SourceFilesTest.writeGzip(file, text);
+            } else {
+                Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+            }
+            files.add(file.toString());
+            expected.append(text);
+        }
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        Concatenator.concatenate(files, plain);
+        assertEquals(expected.toString(), plain.toString("UTF-8"));
+        ByteArrayOutputStream scheduled = new ByteArrayOutputStream();
+        Concatenator.concatenateScheduled(files, scheduled, 4, 1 << 20);
+        assertEquals(expected.toString(), scheduled.toString("UTF-8"));
+        ExecutorService executor = IoExecutors.newExecutor(3);
+        try {
+            ByteArrayOutputStream concurrent = new ByteArrayOutputStream();
+            Concatenator.concatenateConcurrent(files, 0, concurrent, 4, 1 << 20, executor, null);
+            assertEquals(expected.toString(), concurrent.toString("UTF-8"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcatenateScheduledWhenWindowNotPositive() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> Concatenator.concatenateScheduled(Collections.emptyList(), new ByteArrayOutputStream(), 0, 1));
+    }
+}
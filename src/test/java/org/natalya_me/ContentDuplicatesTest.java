@@ -0,0 +1,41 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentDuplicatesTest {
+
+    @Test
+    void testFind(@TempDir Path dir) throws IOException, InterruptedException {
+        File a = Files.write(dir.resolve("a.txt"), "same\n".getBytes()).toFile();
+        File b = Files.write(dir.resolve("b.txt"), "same\n".getBytes()).toFile();
+        File c = Files.write(dir.resolve("c.txt"), "same\n".getBytes()).toFile();
+        // The same size, but different contents
+        File d = Files.write(dir.resolve("d.txt"), "diff\n".getBytes()).toFile();
+        File e = Files.write(dir.resolve("e.txt"), "unique size\n".getBytes()).toFile();
+        File missing = dir.resolve("missing.txt").toFile();
+        ExecutorService executor = IoExecutors.newExecutor(2);
+        try {
+            Map<String, String> expected = new HashMap<>();
+            expected.put(b.getAbsolutePath(), a.getAbsolutePath());
+            expected.put(c.getAbsolutePath(), a.getAbsolutePath());
+            // The original is the smallest path, not the first file
+            assertEquals(expected, ContentDuplicates.find(Arrays.asList(c, e, d, b, a, missing), executor));
+            assertEquals(Collections.emptyMap(), ContentDuplicates.find(Arrays.asList(a, d, e), executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package org.natalya_me;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -54,6 +59,55 @@ public class DataExtractorTest {
         assertEquals(expected, extractor.findAll(new File(RESOURCES, "matchwithspaces.txt")));
     }
 
+    @Test
+    void testFindAllChunkedOfSmallFile() {
+        assertEquals(extractor.findAll(new File(RESOURCES, "match.txt")), extractor.findAllChunked(new File(RESOURCES, "match.txt")));
+        assertThrowsExactly(IllegalArgumentException.class, () -> extractor.findAllChunked(new File("no_such_directory")));
+    }
+
+    @Test
+    void testFindAllChunkedMatchesFindAll(@TempDir Path dir) throws IOException {
+        // Several chunks with different line separators, a line longer than a chunk and no separator at the end
+        int chunkSize = 1 << 12;
+        DataExtractor chunkedExtractor = new DataExtractor("require *' *(.*?) *'", this::extract, chunkSize);
+        StringBuilder text = new StringBuilder();
+        String[] separators = {"\n", "\r\n", "\r"};
+        for (int i = 0; text.length() < 50 * chunkSize; i++) {
+            text.append("line ").append(i).append(i % 100 == 0 ? " require '/path" + i + "' and require '/other" + i + "'" : "")
+                .append(separators[i % separators.length]);
+            if (i == 5000) {
+                char[] longLine = new char[3 * chunkSize];
+                Arrays.fill(longLine, 'x');
+                text.append(longLine).append("require '/long'\n");
+            }
+        }
+        text.append("require '/last'");
+        File file = Files.write(dir.resolve("large.txt"), text.toString().getBytes(StandardCharsets.US_ASCII)).toFile();
+        List<String> expected = extractor.findAll(file);
+        assertTrue(expected.contains("/long"));
+        assertEquals("/last", expected.get(expected.size() - 1));
+        assertEquals(expected, chunkedExtractor.findAllChunked(file));
+    }
+
+    @Test
+    void testFindAllInCompressedFile(@TempDir Path dir) throws IOException {
+        String text = new String(Files.readAllBytes(new File(RESOURCES, "match.txt").toPath()), StandardCharsets.UTF_8);
+        File file = SourceFilesTest.writeGzip(dir.resolve("match.txt.gz"), text).toFile();
+        List<String> expected = extractor.findAll(new File(RESOURCES, "match.txt"));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, extractor.findAll(file));
+        assertEquals(expected, new DataExtractor("require *' *(.*?) *'", this::extract, 1).findAllChunked(file));
+    }
+
+    @Test
+    void testFindAllInCorruptCompressedFile(@TempDir Path dir) throws IOException {
+        String text = new String(Files.readAllBytes(new File(RESOURCES, "match.txt").toPath()), StandardCharsets.UTF_8);
+        byte[] compressed = Files.readAllBytes(SourceFilesTest.writeGzip(dir.resolve("match.txt.gz"), text));
+        File file = Files.write(dir.resolve("truncated.txt.gz"), Arrays.copyOf(compressed, compressed.length - 12)).toFile();
+        // Skipped like an unreadable file instead of failing the scan
+        assertEquals(Collections.emptyList(), extractor.findAll(file));
+    }
+
     private List<String> extract(Matcher matcher) {
         List<String> result = Collections.emptyList();
         while (matcher.find()) {
@@ -1,8 +1,15 @@
 package org.natalya_me;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.natalya_me.algorithm.DirectedGraph;
+import org.natalya_me.algorithm.ExternalGraphBuilder;
+import org.natalya_me.algorithm.MappedGraph;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -58,6 +65,239 @@ public class DependencyReaderTest {
         assertEquals(expected, DependencyReader.getDependencyMap(PATH, true));
     }
 
+    @Test
+    void testGetDependencyGraphWhenThreadsNotPositive() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> DependencyReader.getDependencyGraph(PATH, true, 0));
+    }
+
+    @Test
+    void testGetDependencyGraphMatchesDependencyMap() {
+        for (boolean invert: new boolean[] {true, false}) {
+            Map<String, Set<String>> expected = DependencyReader.getDependencyMap(PATH, invert);
+            DirectedGraph graph = DependencyReader.getDependencyGraph(PATH, invert, 3);
+            assertEquals(expected.size(), graph.size());
+            for (String from: expected.keySet()) {
+                for (String to: expected.keySet()) {
+                    assertEquals(expected.get(from).contains(to), graph.hasArc(from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testGetDependencyMapInInodeOrder() {
+        for (boolean invert: new boolean[] {true, false}) {
+            assertEquals(DependencyReader.getDependencyMap(PATH, invert), DependencyReader.getDependencyMap(PATH, invert, true));
+        }
+    }
+
+    @Test
+    void testScanDependenciesMatchesDependencyMap(@TempDir Path dir) throws IOException {
+        Map<String, Set<String>> expected = DependencyReader.getDependencyMap(PATH, true);
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dir, 2)) {
+            DependencyReader.scanDependencies(PATH, true, builder);
+            try (MappedGraph graph = builder.build(dir.resolve("graph.bin"))) {
+                assertEquals(expected.size(), graph.size());
+                for (String from: expected.keySet()) {
+                    for (String to: expected.keySet()) {
+                        assertEquals(expected.get(from).contains(to), graph.hasArc(from, to));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testGetClosureDependencyMapWhenEntryDoesNotExist() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> DependencyReader.getClosureDependencyMap(PATH, Collections.singletonList("no_such_file.txt"), true));
+    }
+
+    @Test
+    void testGetClosureDependencyMapWhenNoEntries() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> DependencyReader.getClosureDependencyMap(PATH, Collections.emptyList(), true));
+    }
+
+    @Test
+    void testGetClosureDependencyMap() {
+        Map<String, Set<String>> expected = new HashMap<>();
+        expected.put("file1.txt", new HashSet<>(Arrays.asList("file2.txt", "file3.txt")));
+        expected.put("file2.txt", Collections.singleton("file3.txt"));
+        expected.put("file3.txt", Collections.emptySet());
+        expected = transformShortPathToAbsolute(expected);
+
+        assertEquals(expected, DependencyReader.getClosureDependencyMap(PATH, Collections.singletonList("file1.txt"), false));
+    }
+
+    @Test
+    void testGetClosureDependencyMapWhenInvertTrue() {
+        Map<String, Set<String>> expected = new HashMap<>();
+        expected.put("file2.txt", Collections.emptySet());
+        expected.put("file3.txt", Collections.singleton("file2.txt"));
+        expected.put("file5.txt", Collections.emptySet());
+        expected = transformShortPathToAbsolute(expected);
+
+        assertEquals(expected, DependencyReader.getClosureDependencyMap(PATH, Arrays.asList("subfolder/file2.txt", "file5.txt"), true));
+    }
+
+    /**
+     * Creates a tree with a link loop, a link to a directory and a hard link:
+     * a/base.txt, a/b/use.txt requiring alias/base.txt, a/b/loop -> a, alias -> a, c/hard.txt (hard link to a/base.txt)
+     * and c/top.txt requiring c/hard.txt.
+     */
+    private Path createLinkedTree(Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("a/b"));
+        Files.createDirectories(dir.resolve("c"));
+        Files.write(dir.resolve("a/base.txt"), "A\n".getBytes());
+        Files.write(dir.resolve("a/b/use.txt"), "require 'alias/base.txt'\n".getBytes());
+        Files.createSymbolicLink(dir.resolve("a/b/loop"), dir.resolve("a"));
+        Files.createSymbolicLink(dir.resolve("alias"), dir.resolve("a"));
+        Files.createLink(dir.resolve("c/hard.txt"), dir.resolve("a/base.txt"));
+        Files.write(dir.resolve("c/top.txt"), "require 'c/hard.txt'\n".getBytes());
+        return dir;
+    }
+
+    @Test
+    void testGetDependencyMapVisitsEachFileOnce(@TempDir Path dir) throws IOException {
+        String root = createLinkedTree(dir).toString();
+        String base = dir.resolve("a/base.txt").toString();
+        Map<String, Set<String>> expected = new HashMap<>();
+        expected.put(base, Collections.emptySet());
+        expected.put(dir.resolve("a/b/use.txt").toString(), Collections.singleton(base));
+        expected.put(dir.resolve("c/top.txt").toString(), Collections.singleton(base));
+        for (DependencyReader.LinkPolicy links: DependencyReader.LinkPolicy.values()) {
+            assertEquals(expected, DependencyReader.getDependencyMap(root, false, false, links));
+            assertEquals(3, DependencyReader.getDependencyGraph(root, false, 2, false, links).size());
+        }
+        assertEquals(Arrays.asList(dir.resolve("a/b/use.txt").toString(), base, dir.resolve("c/top.txt").toString()),
+                     DependencyReader.listFiles(root));
+    }
+
+    @Test
+    void testScanDependenciesCutsLinkLoops(@TempDir Path dir) throws IOException {
+        String root = createLinkedTree(dir.resolve("tree")).toString();
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dir, 2)) {
+            DependencyReader.scanDependencies(root, false, builder);
+            try (MappedGraph graph = builder.build(dir.resolve("graph.bin"))) {
+                // Physical files are not tracked, so aliases are separate nodes, but the loop links are not followed
+                assertEquals(6, graph.size());
+                assertTrue(graph.hasArc(dir.resolve("tree/a/b/use.txt").toString(), dir.resolve("tree/alias/base.txt").toString()));
+                assertTrue(graph.hasArc(dir.resolve("tree/alias/b/use.txt").toString(), dir.resolve("tree/alias/base.txt").toString()));
+                assertTrue(graph.hasArc(dir.resolve("tree/c/top.txt").toString(), dir.resolve("tree/c/hard.txt").toString()));
+                assertTrue(graph.hasNode(dir.resolve("tree/a/base.txt").toString()));
+            }
+        }
+    }
+
+    @Test
+    void testScanDependenciesRejectsPatternRequirements(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("tree/lib"));
+        Files.write(dir.resolve("tree/lib/a.txt"), "A\n".getBytes());
+        Files.write(dir.resolve("tree/main.txt"), "require 'lib'\n".getBytes());
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dir, 2)) {
+            assertThrows(IllegalArgumentException.class, () -> DependencyReader.scanDependencies(dir.resolve("tree").toString(), false, builder));
+        }
+    }
+
+    /**
+     * Creates a tree with vendored copies: v1/lib.txt and v2/lib.txt are identical, app1.txt requires v1/lib.txt,
+     * app2.txt requires v2/lib.txt.
+     */
+    private Path createDuplicatedTree(Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("v1"));
+        Files.createDirectories(dir.resolve("v2"));
+        Files.write(dir.resolve("v1/lib.txt"), "lib\n".getBytes());
+        Files.write(dir.resolve("v2/lib.txt"), "lib\n".getBytes());
+        Files.write(dir.resolve("app1.txt"), "require 'v1/lib.txt'\n".getBytes());
+        Files.write(dir.resolve("app2.txt"), "require 'v2/lib.txt'\n".getBytes());
+        return dir;
+    }
+
+    @Test
+    void testDedupeMergesIdenticalFiles(@TempDir Path dir) throws IOException {
+        String root = createDuplicatedTree(dir).toString();
+        String lib = dir.resolve("v1/lib.txt").toString();
+        Map<String, Set<String>> expected = new HashMap<>();
+        expected.put(lib, Collections.emptySet());
+        expected.put(dir.resolve("app1.txt").toString(), Collections.singleton(lib));
+        expected.put(dir.resolve("app2.txt").toString(), Collections.singleton(lib));
+        assertEquals(expected, DependencyReader.getDependencyMap(root, false, false, DependencyReader.LinkPolicy.FOLLOW, true));
+        assertEquals(4, DependencyReader.getDependencyMap(root, false, false, DependencyReader.LinkPolicy.FOLLOW, false).size());
+
+        DirectedGraph graph = DependencyReader.getDependencyGraph(root, false, 2, false, DependencyReader.LinkPolicy.FOLLOW, true);
+        assertEquals(3, graph.size());
+        assertTrue(graph.hasArc(dir.resolve("app2.txt").toString(), lib));
+
+        // Merging after a scan without deduplication gives the same graph
+        DirectedGraph merged = DependencyReader.getDependencyGraph(root, false, 2);
+        assertEquals(1, DependencyReader.mergeDuplicates(merged, 2));
+        assertEquals(3, merged.size());
+        assertTrue(merged.hasArc(dir.resolve("app1.txt").toString(), lib));
+        assertTrue(merged.hasArc(dir.resolve("app2.txt").toString(), lib));
+    }
+
+    @Test
+    void testPatternRequirements(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("lib/sub"));
+        Files.write(dir.resolve("lib/a.txt"), "require 'lib/**'\n".getBytes());
+        Files.write(dir.resolve("lib/sub/b.txt"), "B\n".getBytes());
+        Files.write(dir.resolve("main.txt"), "require 'lib/*.txt'\nrequire 'lib/sub'\nrequire 'lib/*.doc'\n".getBytes());
+        String root = dir.toString();
+        String a = dir.resolve("lib/a.txt").toString();
+        String b = dir.resolve("lib/sub/b.txt").toString();
+        Map<String, Set<String>> expected = new HashMap<>();
+        // A pattern doesn't require the file itself
+        expected.put(a, Collections.singleton(b));
+        expected.put(b, Collections.emptySet());
+        expected.put(dir.resolve("main.txt").toString(), new HashSet<>(Arrays.asList(a, b)));
+        assertEquals(expected, DependencyReader.getDependencyMap(root, false));
+        assertEquals(expected, DependencyReader.getSubtreeDependencyMap(root, Collections.singletonList(root), false));
+        assertEquals(expected, DependencyReader.getClosureDependencyMap(root, Collections.singletonList("main.txt"), false));
+        DirectedGraph graph = DependencyReader.getDependencyGraph(root, false, 2);
+        assertTrue(graph.hasArc(dir.resolve("main.txt").toString(), a));
+        assertTrue(graph.hasArc(a, b));
+        assertFalse(graph.hasArc(a, a));
+    }
+
+    @Test
+    void testRootRequirementsAreSkipped(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("lib"));
+        Files.write(dir.resolve("lib/a.txt"), "A\n".getBytes());
+        Files.write(dir.resolve("main.txt"), "require ''\nrequire '.'\nrequire './'\nrequire 'lib/a.txt'\n".getBytes());
+        // Requiring the whole tree would make a cycle with main.txt
+        Files.write(dir.resolve("other.txt"), "require '/'\n".getBytes());
+        String root = dir.toString();
+        String a = dir.resolve("lib/a.txt").toString();
+        String main = dir.resolve("main.txt").toString();
+        String other = dir.resolve("other.txt").toString();
+        Map<String, Set<String>> expected = new HashMap<>();
+        expected.put(a, Collections.emptySet());
+        expected.put(main, Collections.singleton(a));
+        expected.put(other, Collections.emptySet());
+        assertEquals(expected, DependencyReader.getDependencyMap(root, false));
+        expected.remove(other);
+        assertEquals(expected, DependencyReader.getClosureDependencyMap(root, Collections.singletonList("main.txt"), false));
+        DirectedGraph graph = DependencyReader.getDependencyGraph(root, false, 2);
+        assertEquals(3, graph.size());
+        assertFalse(graph.hasArc(main, other));
+        assertFalse(graph.hasArc(other, main));
+    }
+
+    @Test
+    void testLinkPolicySkip(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("outside"));
+        Files.createDirectories(dir.resolve("root"));
+        Files.write(dir.resolve("outside/file.txt"), "X\n".getBytes());
+        Files.write(dir.resolve("root/file.txt"), "Y\n".getBytes());
+        Files.createSymbolicLink(dir.resolve("root/link"), dir.resolve("outside"));
+        String root = dir.resolve("root").toString();
+        assertEquals(2, DependencyReader.listFiles(root, DependencyReader.LinkPolicy.FOLLOW).size());
+        assertEquals(Collections.singletonList(dir.resolve("root/file.txt").toString()),
+                     DependencyReader.listFiles(root, DependencyReader.LinkPolicy.SKIP));
+        assertThrows(IllegalArgumentException.class, () -> DependencyReader.LinkPolicy.parse("copy"));
+    }
+
     private Map<String, Set<String>> transformShortPathToAbsolute(Map<String, Set<String>> shortPathMap) {
         Map<String, String> fileShortcuts = new HashMap<>();
         fillFileShortCuts(new File(PATH), fileShortcuts);
@@ -0,0 +1,99 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.natalya_me.algorithm.DirectedGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DependencySnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLoadWhenNoSnapshot() throws IOException {
+        assertNull(DependencySnapshot.load(dir.resolve("snapshot.bin"), dir.toString()));
+    }
+
+    @Test
+    void testLoadWhenNothingChanged() throws IOException {
+        Path root = createTree();
+        Path snapshot = dir.resolve("snapshot.bin");
+        DirectedGraph graph = DirectedGraph.createFromAdjacencyList(DependencyReader.getDependencyMap(root.toString(), true));
+        DependencySnapshot.save(snapshot, root.toString(), graph);
+
+        DirectedGraph loaded = DependencySnapshot.load(snapshot, root.toString());
+        assertNotNull(loaded);
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.hasArc(path(root, "b.txt"), path(root, "a.txt")));
+    }
+
+    @Test
+    void testLoadWhenFileModified() throws IOException {
+        Path root = createTree();
+        Path snapshot = dir.resolve("snapshot.bin");
+        DependencySnapshot.save(snapshot, root.toString(),
+                DirectedGraph.createFromAdjacencyList(DependencyReader.getDependencyMap(root.toString(), true)));
+        Files.write(root.resolve("b.txt"), "changed content".getBytes());
+        assertNull(DependencySnapshot.load(snapshot, root.toString()));
+    }
+
+    @Test
+    void testLoadWhenFileAdded() throws IOException {
+        Path root = createTree();
+        Path snapshot = dir.resolve("snapshot.bin");
+        DependencySnapshot.save(snapshot, root.toString(),
+                DirectedGraph.createFromAdjacencyList(DependencyReader.getDependencyMap(root.toString(), true)));
+        Files.write(root.resolve("c.txt"), new byte[0]);
+        assertNull(DependencySnapshot.load(snapshot, root.toString()));
+    }
+
+    @Test
+    void testLoadWhenAnotherRoot() throws IOException {
+        Path root = createTree();
+        Path snapshot = dir.resolve("snapshot.bin");
+        DependencySnapshot.save(snapshot, root.toString(),
+                DirectedGraph.createFromAdjacencyList(DependencyReader.getDependencyMap(root.toString(), true)));
+        assertNull(DependencySnapshot.load(snapshot, dir.toString()));
+    }
+
+    @Test
+    void testLoadWithAnotherLinkPolicy() throws IOException {
+        Path root = createTree();
+        Files.createDirectory(dir.resolve("outside"));
+        Files.write(dir.resolve("outside/c.txt"), "C".getBytes());
+        Files.createSymbolicLink(root.resolve("link"), dir.resolve("outside"));
+        Path snapshot = dir.resolve("snapshot.bin");
+        for (DependencyReader.LinkPolicy links: DependencyReader.LinkPolicy.values()) {
+            DependencySnapshot.save(snapshot, root.toString(), DirectedGraph.createFromAdjacencyList(
+                    DependencyReader.getDependencyMap(root.toString(), true, false, links)), links);
+            assertNotNull(DependencySnapshot.load(snapshot, root.toString(), links));
+            for (DependencyReader.LinkPolicy other: DependencyReader.LinkPolicy.values()) {
+                if (other != links) {
+                    assertNull(DependencySnapshot.load(snapshot, root.toString(), other));
+                }
+            }
+        }
+        assertEquals(2, DependencySnapshot.load(snapshot, root.toString(), DependencyReader.LinkPolicy.SKIP).size());
+    }
+
+    private Path createTree() throws IOException {
+        Path root = Files.createDirectory(dir.resolve("root"));
+        Files.write(root.resolve("a.txt"), "require 'b.txt'".getBytes());
+        Files.write(root.resolve("b.txt"), "content".getBytes());
+        return root;
+    }
+
+    private static String path(Path root, String name) {
+        return new File(root.toFile(), name).getAbsolutePath();
+    }
+}
@@ -0,0 +1,87 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FingerprintTest {
+
+    @TempDir
+    Path dir;
+
+    private List<String> createSources() throws IOException {
+        Path first = Files.write(dir.resolve("first.txt"), "first".getBytes());
+        Path second = Files.write(dir.resolve("second.txt"), "second".getBytes());
+        return Arrays.asList(first.toString(), second.toString());
+    }
+
+    @Test
+    void testUpToDateWhenNothingChanged() throws IOException {
+        List<String> files = createSources();
+        Path target = Files.write(dir.resolve("target.txt"), "firstsecond".getBytes());
+        Path file = dir.resolve("target.txt.fp");
+        Fingerprint.compute(files, false, 2).save(file, target);
+        assertTrue(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, false, 2), target));
+        // A fingerprint without the content hash cannot confirm contents
+        assertFalse(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, true, 2), target));
+    }
+
+    @Test
+    void testNotUpToDateWhenSourceModified() throws IOException {
+        List<String> files = createSources();
+        Path target = Files.write(dir.resolve("target.txt"), "firstsecond".getBytes());
+        Path file = dir.resolve("target.txt.fp");
+        Fingerprint.compute(files, false, 2).save(file, target);
+        Files.setLastModifiedTime(dir.resolve("second.txt"), FileTime.fromMillis(0));
+        assertFalse(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, false, 2), target));
+    }
+
+    @Test
+    void testStrictUpToDateIgnoresModificationTime() throws IOException {
+        List<String> files = createSources();
+        Path target = Files.write(dir.resolve("target.txt"), "firstsecond".getBytes());
+        Path file = dir.resolve("target.txt.fp");
+        Fingerprint.compute(files, true, 2).save(file, target);
+        Files.setLastModifiedTime(dir.resolve("second.txt"), FileTime.fromMillis(0));
+        assertTrue(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, true, 2), target));
+        Files.write(dir.resolve("second.txt"), "changed".getBytes());
+        assertFalse(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, true, 2), target));
+    }
+
+    @Test
+    void testNotUpToDateWhenTargetChanged() throws IOException {
+        List<String> files = createSources();
+        Path target = Files.write(dir.resolve("target.txt"), "firstsecond".getBytes());
+        Path file = dir.resolve("target.txt.fp");
+        Fingerprint.compute(files, false, 2).save(file, target);
+        Files.write(target, "truncated".getBytes());
+        assertFalse(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, false, 2), target));
+        Files.delete(target);
+        assertFalse(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, false, 2), target));
+    }
+
+    @Test
+    void testNotUpToDateWhenOutputOptionsChanged() throws IOException {
+        List<String> files = createSources();
+        Path target = Files.write(dir.resolve("target.txt"), "firstsecond".getBytes());
+        Path file = dir.resolve("target.txt.fp");
+        Fingerprint.compute(files, false, 2).save(file, target);
+        assertFalse(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, "compress=gzip", false, 2), target));
+        Fingerprint.compute(files, "compress=gzip", true, 2).save(file, target);
+        assertTrue(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, "compress=gzip", true, 2), target));
+        assertFalse(Fingerprint.load(file).isUpToDate(Fingerprint.compute(files, true, 2), target));
+    }
+
+    @Test
+    void testLoadWhenNoFile() throws IOException {
+        assertNull(Fingerprint.load(dir.resolve("no_such_file.fp")));
+    }
+}
@@ -0,0 +1,79 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IoExecutorsTest {
+
+    @Test
+    void testNewExecutorWhenConcurrencyNotPositive() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> IoExecutors.newExecutor(0));
+    }
+
+    @Test
+    void testNewExecutorCapsConcurrency() throws InterruptedException, ExecutionException {
+        ExecutorService executor = IoExecutors.newExecutor(3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                futures.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(2);
+                    running.decrementAndGet();
+                    return null;
+                }));
+            }
+            for (Future<?> future: futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    // Run by the java21 profile against the multi-release JAR
+    @Test
+    @EnabledIfSystemProperty(named = "io.executors.virtual", matches = "true")
+    void testNewExecutorRunsVirtualThreads() throws Exception {
+        assertTrue(IoExecutors.isVirtual());
+        ExecutorService executor = IoExecutors.newExecutor(2);
+        try {
+            // The tests are compiled for Java 8, where Thread.isVirtual() is absent
+            Object virtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get();
+            assertEquals(Boolean.TRUE, virtual);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "io.executors.virtual", matches = "true")
+    void testShutdownNowCancelsWaitingTasks() throws InterruptedException {
+        ExecutorService executor = IoExecutors.newExecutor(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(executor.submit(() -> {
+                Thread.sleep(10_000);
+                return null;
+            }));
+        }
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        for (Future<?> future: futures) {
+            assertTrue(future.isDone());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffsetTableTest {
+
+    @TempDir
+    Path dir;
+
+    private List<String> files;
+    private Path target;
+    private Path tableFile;
+
+    private void writeTarget() throws IOException {
+        files = Arrays.asList(Files.write(dir.resolve("a.txt"), "aaa".getBytes()).toString(),
+                              Files.write(dir.resolve("b.txt"), "bb".getBytes()).toString(),
+                              Files.write(dir.resolve("c.txt"), "c".getBytes()).toString());
+        target = Files.write(dir.resolve("target.txt"), "aaabbc".getBytes());
+        tableFile = dir.resolve("target.txt.idx");
+        OffsetTable.save(tableFile, files, new long[] {3, 5, 6}, target);
+    }
+
+    @Test
+    void testUnchangedPrefixWhenNothingChanged() throws IOException {
+        writeTarget();
+        OffsetTable table = OffsetTable.load(tableFile);
+        assertEquals(3, table.unchangedPrefix(files, target));
+        assertEquals(6, table.offsetAfter(3));
+        assertEquals(0, table.offsetAfter(0));
+    }
+
+    @Test
+    void testUnchangedPrefixWhenSourceChanged() throws IOException {
+        writeTarget();
+        Files.write(dir.resolve("b.txt"), "bbbb".getBytes());
+        OffsetTable table = OffsetTable.load(tableFile);
+        assertEquals(1, table.unchangedPrefix(files, target));
+        assertEquals(3, table.offsetAfter(1));
+    }
+
+    @Test
+    void testUnchangedPrefixWhenOrderChanged() throws IOException {
+        writeTarget();
+        OffsetTable table = OffsetTable.load(tableFile);
+        assertEquals(0, table.unchangedPrefix(Arrays.asList(files.get(1), files.get(0), files.get(2)), target));
+        assertEquals(2, table.unchangedPrefix(files.subList(0, 2), target));
+        assertEquals(0, table.unchangedPrefix(Collections.emptyList(), target));
+    }
+
+    @Test
+    void testUnchangedPrefixWhenTargetChanged() throws IOException {
+        writeTarget();
+        Files.write(target, "aaabbcc".getBytes());
+        assertEquals(0, OffsetTable.load(tableFile).unchangedPrefix(files, target));
+    }
+
+    @Test
+    void testSaveWhenOffsetsDoNotMatchFiles() throws IOException {
+        writeTarget();
+        assertThrowsExactly(IllegalArgumentException.class, () -> OffsetTable.save(tableFile, files, new long[] {3}, target));
+    }
+
+    @Test
+    void testLoadWhenNoFile() throws IOException {
+        assertNull(OffsetTable.load(dir.resolve("no_such_file.idx")));
+    }
+}
@@ -0,0 +1,97 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputSinkTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] data(int size) {
+        // Compressible, but not trivial data
+        byte[] data = new byte[size];
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return data;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = input.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private Path write(OutputSink.Compression compression, byte[] data) throws IOException {
+        Path file = dir.resolve("target.gz");
+        try (OutputSink sink = OutputSink.compress(OutputSink.toFile(file, 0), compression, 4)) {
+            sink.getStream().write(data, 0, 1000);
+            sink.getStream().write(data, 1000, data.length - 1000);
+        }
+        return file;
+    }
+
+    @Test
+    void testFileSinkKeepsPrefix() throws IOException {
+        Path file = Files.write(dir.resolve("target.txt"), "aaabbb".getBytes());
+        try (OutputSink.FileSink sink = OutputSink.toFile(file, 3)) {
+            sink.getStream().write("c".getBytes());
+            assertEquals(4, sink.getChannel().position());
+        }
+        assertEquals("aaac", new String(Files.readAllBytes(file)));
+    }
+
+    @Test
+    void testGzip() throws IOException {
+        byte[] data = data(100_000);
+        Path file = write(OutputSink.Compression.GZIP, data);
+        assertArrayEquals(data, readAll(new GZIPInputStream(Files.newInputStream(file))));
+    }
+
+    @Test
+    void testDeflate() throws IOException {
+        byte[] data = data(100_000);
+        Path file = write(OutputSink.Compression.DEFLATE, data);
+        assertArrayEquals(data, readAll(new InflaterInputStream(Files.newInputStream(file))));
+    }
+
+    @Test
+    void testParallelGzipOfSeveralBlocks() throws IOException {
+        byte[] data = data(5 * (1 << 20) + 12345);
+        Path file = write(OutputSink.Compression.PARALLEL_GZIP, data);
+        assertTrue(Files.size(file) < data.length);
+        assertArrayEquals(data, readAll(new GZIPInputStream(Files.newInputStream(file))));
+    }
+
+    @Test
+    void testParallelGzipOfEmptyData() throws IOException {
+        Path file = dir.resolve("empty.gz");
+        OutputSink.compress(OutputSink.toFile(file, 0), OutputSink.Compression.PARALLEL_GZIP, 2).close();
+        assertEquals(0, readAll(new GZIPInputStream(Files.newInputStream(file))).length);
+    }
+
+    @Test
+    void testParseCompression() {
+        assertEquals(OutputSink.Compression.GZIP, OutputSink.Compression.parse("gzip"));
+        assertEquals(OutputSink.Compression.PARALLEL_GZIP, OutputSink.Compression.parse("parallel-gzip"));
+        assertThrows(IllegalArgumentException.class, () -> OutputSink.Compression.parse("zip"));
+    }
+}
@@ -0,0 +1,89 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathIndexTest {
+
+    private static final File ROOT = new File("/root");
+
+    private final AtomicInteger walks = new AtomicInteger();
+    private final PathIndex index = new PathIndex(ROOT, () -> {
+        walks.incrementAndGet();
+        return files("lib/b.txt", "main.txt", "lib/a.txt", "lib/sub/c.txt", "lib/sub/d.md", "library.txt", "other/e.txt");
+    });
+
+    private static List<File> files(String... paths) {
+        List<File> files = new ArrayList<>();
+        for (String path: paths) {
+            files.add(new File(ROOT, path));
+        }
+        return files;
+    }
+
+    @Test
+    void testIsPattern() {
+        assertTrue(PathIndex.isPattern("lib/*.txt"));
+        assertTrue(PathIndex.isPattern("file?.txt"));
+        assertTrue(PathIndex.isPattern("{a,b}.txt"));
+        assertFalse(PathIndex.isPattern("lib/a.txt"));
+    }
+
+    @Test
+    void testExpandPatterns() {
+        assertEquals(files("lib/a.txt", "lib/b.txt"), index.expand("lib/*.txt"));
+        assertEquals(files("lib/a.txt", "lib/b.txt", "lib/sub/c.txt"), index.expand("lib/**/*.txt"));
+        assertEquals(files("lib/a.txt", "lib/b.txt", "lib/sub/c.txt", "lib/sub/d.md"), index.expand("/lib/**"));
+        assertEquals(files("lib/a.txt", "lib/b.txt", "lib/sub/c.txt", "library.txt", "main.txt", "other/e.txt"), index.expand("**/*.txt"));
+        assertEquals(files("lib/b.txt", "lib/sub/c.txt"), index.expand("./lib/{b,sub/c}.txt"));
+        assertEquals(files("lib/a.txt"), index.expand("lib/[!b].txt"));
+        assertEquals(files("lib/a.txt", "lib/b.txt"), index.expand("lib/?.t?t"));
+        assertEquals(Collections.emptyList(), index.expand("lib/*.doc"));
+        assertEquals(Collections.emptyList(), index.expand("lib/{a,b"));
+        // The index is built once
+        assertEquals(1, walks.get());
+    }
+
+    @Test
+    void testExpandDirectory() {
+        assertEquals(files("lib/a.txt", "lib/b.txt", "lib/sub/c.txt", "lib/sub/d.md"), index.expand("lib"));
+        assertEquals(files("lib/sub/c.txt", "lib/sub/d.md"), index.expand("lib/sub/"));
+        assertEquals(7, index.expand("/").size());
+        // A lone "." names the root as well
+        assertEquals(7, index.expand(".").size());
+        assertEquals(files("lib/sub/c.txt", "lib/sub/d.md"), index.expand("./lib/./sub"));
+    }
+
+    @Test
+    void testIsRoot() {
+        assertTrue(PathIndex.isRoot(""));
+        assertTrue(PathIndex.isRoot("."));
+        assertTrue(PathIndex.isRoot("./"));
+        assertTrue(PathIndex.isRoot("/"));
+        assertFalse(PathIndex.isRoot("lib"));
+    }
+
+    @Test
+    void testSetsMatchWithinPathElement() {
+        // "lib[!x]a.txt" and "lib[/]a.txt" must not match "lib/a.txt"
+        assertEquals(Collections.emptyList(), index.expand("lib[!x]a.txt"));
+        assertEquals(Collections.emptyList(), index.expand("lib[/]a.txt"));
+        assertEquals(files("lib/a.txt"), index.expand("lib/[a-a].txt"));
+        assertEquals(files("library.txt"), index.expand("lib[!/]ary.txt"));
+    }
+
+    @Test
+    void testExpansionIsCached() {
+        List<File> first = index.expand("lib/*.txt");
+        assertSame(first, index.expand("lib/*.txt"));
+        assertEquals(Arrays.asList(first.get(0)), index.expand("lib/a*"));
+    }
+}
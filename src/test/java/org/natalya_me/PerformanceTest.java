@@ -0,0 +1,163 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.natalya_me.algorithm.CycleDetection;
+import org.natalya_me.algorithm.DirectedGraph;
+import org.natalya_me.algorithm.TopologicalOrdering;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Performance regression tests: fixed synthetic graphs and file trees are run through the main stages, and the bytes
+ * allocated by the test thread (measured with {@link com.sun.management.ThreadMXBean}) and the elapsed time
+ * of an operation are compared with the budgets in performance_budgets.properties.
+ * Each operation is warmed up first, then the smallest allocation and the median time of several runs are taken.
+ * <p>
+ * The tests are tagged "performance" and excluded from the default build, run them with {@code mvn test -P perf}.
+ */
+@Tag("performance")
+public class PerformanceTest {
+
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 7;
+
+    // Synthetic graph: nodes in layers, each node requires up to 3 nodes of earlier layers
+    private static final int GRAPH_NODES = 20_000;
+    private static final int GRAPH_LAYER = 100;
+    // Synthetic tree: directories of files, each file requires up to 3 files of earlier directories
+    private static final int TREE_DIRECTORIES = 20;
+    private static final int TREE_FILES = 25;
+
+    private static final TopologicalOrdering ORDERING = new TopologicalOrdering(Comparator.comparing(DirectedGraph.Node::getId));
+
+    private static Properties budgets;
+    private static com.sun.management.ThreadMXBean threads;
+    private static Map<String, Set<String>> adjacency;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        budgets = new Properties();
+        try (InputStream in = PerformanceTest.class.getResourceAsStream("/performance_budgets.properties")) {
+            budgets.load(in);
+        }
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        Random random = new Random(42);
+        adjacency = new TreeMap<>();
+        for (int i = 0; i < GRAPH_NODES; i++) {
+            Set<String> requirements = new HashSet<>();
+            int layerStart = i / GRAPH_LAYER * GRAPH_LAYER;
+            for (int k = 0; k < 3 && layerStart > 0; k++) {
+                requirements.add(nodeId(random.nextInt(layerStart)));
+            }
+            adjacency.put(nodeId(i), requirements);
+        }
+    }
+
+    private static String nodeId(int number) {
+        return String.format("/root/dir%03d/file%05d.txt", number / GRAPH_LAYER, number);
+    }
+
+    @Test
+    void testBuildGraph() {
+        measure("graph.build", () -> DirectedGraph.createFromAdjacencyList(adjacency));
+    }
+
+    @Test
+    void testTopologicalOrdering() {
+        DirectedGraph graph = DirectedGraph.createFromAdjacencyList(adjacency);
+        TopologicalOrdering.TopologicalOrderingResult result = measure("graph.sort", () -> ORDERING.sort(graph));
+        assertEquals(TopologicalOrdering.TopologicalOrderingResult.TYPE.ORDER, result.getType());
+        assertEquals(GRAPH_NODES, result.getResult().size());
+    }
+
+    @Test
+    void testCycleDetection() {
+        DirectedGraph graph = DirectedGraph.createFromAdjacencyList(adjacency);
+        assertTrue(measure("graph.cycle", () -> CycleDetection.findCycle(graph)).isEmpty());
+    }
+
+    @Test
+    void testDependencyReader(@TempDir Path dir) throws IOException {
+        Random random = new Random(42);
+        for (int d = 0; d < TREE_DIRECTORIES; d++) {
+            Path directory = Files.createDirectories(dir.resolve(String.format("dir%02d", d)));
+            for (int f = 0; f < TREE_FILES; f++) {
+                StringBuilder text = new StringBuilder();
+                for (int k = 0; k < 3 && d > 0; k++) {
+                    text.append(String.format("require 'dir%02d/file%02d.txt'%n", random.nextInt(d), random.nextInt(TREE_FILES)));
+                }
+                for (int line = 0; line < 50; line++) {
+                    text.append("Some text of the file, which is not a directive.\n");
+                }
+                Files.write(directory.resolve(String.format("file%02d.txt", f)), text.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        String root = dir.toString();
+        Map<String, Set<String>> dependencies = measure("reader.map", () -> DependencyReader.getDependencyMap(root, true));
+        assertEquals(TREE_DIRECTORIES * TREE_FILES, dependencies.size());
+    }
+
+    /**
+     * Runs the operation and checks its allocation and time against the budgets "name.bytes" and "name.millis".
+     *
+     * @return result of the last run
+     */
+    private static <T> T measure(String name, Supplier<T> operation) {
+        long bytesBudget = budget(name + ".bytes");
+        long millisBudget = budget(name + ".millis");
+        T result = null;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            result = operation.get();
+        }
+        long bytes = Long.MAX_VALUE;
+        long[] nanos = new long[MEASURED_RUNS];
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long allocatedBefore = threads != null ? threads.getThreadAllocatedBytes(threadId) : 0;
+            long start = System.nanoTime();
+            result = operation.get();
+            nanos[i] = System.nanoTime() - start;
+            if (threads != null) {
+                bytes = Math.min(bytes, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+            }
+        }
+        Arrays.sort(nanos);
+        long millis = nanos[MEASURED_RUNS / 2] / 1_000_000;
+        System.out.printf("Performance %s: %d bytes allocated (budget %d), %d ms (budget %d).%n",
+                          name, threads != null ? bytes : -1, bytesBudget, millis, millisBudget);
+        assertTrue(millis <= millisBudget, String.format("%s took %d ms, the budget is %d ms", name, millis, millisBudget));
+        assumeTrue(threads != null, "Allocation of threads cannot be measured on this JVM");
+        assertTrue(bytes <= bytesBudget, String.format("%s allocated %d bytes, the budget is %d bytes", name, bytes, bytesBudget));
+        return result;
+    }
+
+    private static long budget(String key) {
+        String value = budgets.getProperty(key);
+        assertNotNull(value, "There is no budget " + key);
+        return Long.parseLong(value.trim());
+    }
+}
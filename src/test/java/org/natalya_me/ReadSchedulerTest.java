@@ -0,0 +1,56 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadSchedulerTest {
+
+    private final String PATH = "src/test/resources/dependency_reader_test/";
+
+    private List<Path> listFiles() {
+        List<Path> files = new ArrayList<>();
+        for (String file: DependencyReader.listFiles(PATH)) {
+            files.add(Paths.get(file));
+        }
+        return files;
+    }
+
+    @Test
+    void testSortByInode() {
+        List<Path> files = listFiles();
+        List<Path> sorted = ReadScheduler.sortByInode(files, p -> p);
+        assertEquals(files.size(), sorted.size());
+        assertEquals(new HashSet<>(files), new HashSet<>(sorted));
+        for (int i = 1; i < sorted.size(); i++) {
+            long previous = ReadScheduler.inode(sorted.get(i - 1));
+            assertTrue(previous < 0 || previous <= ReadScheduler.inode(sorted.get(i)));
+        }
+        assertEquals(0, ReadScheduler.estimateSeeks(Collections.emptyList()));
+    }
+
+    @Test
+    void testSortByDirectoryKeepsDirectoriesTogether() {
+        List<Path> sorted = ReadScheduler.sortByDirectory(listFiles(), p -> p);
+        List<Path> directories = new ArrayList<>();
+        for (Path file: sorted) {
+            Path directory = file.getParent();
+            if (directories.isEmpty() || !directories.get(directories.size() - 1).equals(directory)) {
+                assertFalse(directories.contains(directory));
+                directories.add(directory);
+            }
+        }
+    }
+
+    @Test
+    void testInodeWhenFileDoesNotExist() {
+        assertEquals(-1, ReadScheduler.inode(Paths.get(PATH, "no_such_file.txt")));
+    }
+}
@@ -0,0 +1,75 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private List<String> files(String... contents) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < contents.length; i++) {
+            files.add(Files.write(dir.resolve("f" + i + ".txt"), contents[i].getBytes()).toString());
+        }
+        return files;
+    }
+
+    private String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testPlanBySize() throws IOException {
+        List<String> files = files("aaa", "bb", "c", "dddddd", "e");
+        // The 6-byte file exceeds the cap alone and gets its own shard
+        assertEquals(Arrays.asList(0, 2, 3, 4), ShardWriter.plan(files, 5, 0));
+    }
+
+    @Test
+    void testPlanByCount() throws IOException {
+        List<String> files = files("a", "b", "c", "d", "e");
+        assertEquals(Arrays.asList(0, 2, 4), ShardWriter.plan(files, 0, 2));
+        assertEquals(Collections.singletonList(0), ShardWriter.plan(files, 0, 0));
+        assertEquals(Collections.singletonList(0), ShardWriter.plan(Collections.emptyList(), 5, 2));
+    }
+
+    @Test
+    void testWrite() throws IOException {
+        List<String> files = files("aaa", "bb", "c", "dddddd", "e");
+        Path target = dir.resolve("target.txt");
+        assertEquals(4, ShardWriter.write(files, target, 5, 0, 2));
+        assertEquals("aaabb", read(ShardWriter.shardPath(target, 0)));
+        assertEquals("c", read(ShardWriter.shardPath(target, 1)));
+        assertEquals("dddddd", read(ShardWriter.shardPath(target, 2)));
+        assertEquals("e", read(ShardWriter.shardPath(target, 3)));
+        List<String> index = Files.readAllLines(ShardWriter.indexPath(target));
+        assertEquals(5, index.size());
+        assertEquals(files.get(0) + "\ttarget.txt.00000\t0\t3", index.get(0));
+        assertEquals(files.get(1) + "\ttarget.txt.00000\t3\t2", index.get(1));
+        assertEquals(files.get(4) + "\ttarget.txt.00003\t0\t1", index.get(4));
+    }
+
+    @Test
+    void testWriteRemovesStaleShards() throws IOException {
+        List<String> files = files("a", "b", "c");
+        Path target = dir.resolve("target.txt");
+        assertEquals(3, ShardWriter.write(files, target, 0, 1, 1));
+        assertEquals(1, ShardWriter.write(files, target, 0, 0, 1));
+        assertEquals("abc", read(ShardWriter.shardPath(target, 0)));
+        assertFalse(Files.exists(ShardWriter.shardPath(target, 1)));
+        assertFalse(Files.exists(ShardWriter.shardPath(target, 2)));
+    }
+}
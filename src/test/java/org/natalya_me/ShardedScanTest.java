@@ -0,0 +1,105 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.natalya_me.algorithm.DirectedGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedScanTest {
+
+    private final String PATH = "src/test/resources/dependency_reader_test/";
+
+    @Test
+    void testGetDependencyGraphWhenWorkersNotPositive() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> ShardedScan.getDependencyGraph(PATH, true, 0));
+    }
+
+    @Test
+    void testGetDependencyGraphWhenPathIsNotDirectory() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> ShardedScan.getDependencyGraph(PATH + "file1.txt", true, 2));
+    }
+
+    @Test
+    void testSplitCoversAllFiles() {
+        List<List<String>> shards = ShardedScan.split(new File(PATH), 2);
+        assertTrue(shards.size() <= 2);
+        List<String> files = new ArrayList<>();
+        for (List<String> shard: shards) {
+            assertFalse(shard.isEmpty());
+            for (String subtree: shard) {
+                files.addAll(DependencyReader.getSubtreeDependencyMap(PATH, Collections.singletonList(subtree), false).keySet());
+            }
+        }
+        List<String> expected = DependencyReader.listFiles(PATH);
+        assertEquals(expected.size(), files.size());
+        assertTrue(files.containsAll(expected));
+    }
+
+    @Test
+    void testGetDependencyGraphMatchesDependencyMap() throws IOException {
+        for (boolean invert: new boolean[] {true, false}) {
+            Map<String, Set<String>> expected = DependencyReader.getDependencyMap(PATH, invert);
+            DirectedGraph graph = ShardedScan.getDependencyGraph(PATH, invert, 2);
+            assertEquals(expected.size(), graph.size());
+            for (String from: expected.keySet()) {
+                for (String to: expected.keySet()) {
+                    assertEquals(expected.get(from).contains(to), graph.hasArc(from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSplitDropsLinkLoop(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("a"));
+        Files.write(dir.resolve("a/file.txt"), "A\n".getBytes());
+        Files.createSymbolicLink(dir.resolve("a/loop"), dir.resolve("a"));
+        // Expanding the loop would never reach enough subtrees
+        List<List<String>> shards = ShardedScan.split(dir.toFile(), 4);
+        assertEquals(Collections.singletonList(Collections.singletonList(dir.resolve("a/file.txt").toString())), shards);
+    }
+
+    @Test
+    void testGetDependencyGraphMergesHardLinks(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("a"));
+        Files.createDirectories(dir.resolve("b"));
+        Files.write(dir.resolve("a/base.txt"), "A\n".getBytes());
+        Files.createLink(dir.resolve("b/hard.txt"), dir.resolve("a/base.txt"));
+        Files.write(dir.resolve("b/top.txt"), "require 'b/hard.txt'\n".getBytes());
+        DirectedGraph graph = ShardedScan.getDependencyGraph(dir.toString(), false, 2);
+        assertEquals(2, graph.size());
+        assertTrue(graph.hasArc(dir.resolve("b/top.txt").toString(), dir.resolve("a/base.txt").toString()));
+    }
+
+    @Test
+    void testGetDependencyGraphChoosesSamePathsAsDependencyMap(@TempDir Path dir) throws IOException {
+        // "a-c/h.txt" comes before "a/deep/x.txt" as a string, but after it in a traversal by names
+        Files.createDirectories(dir.resolve("a/deep"));
+        Files.createDirectories(dir.resolve("a-c"));
+        Files.write(dir.resolve("a/deep/x.txt"), "X\n".getBytes());
+        Files.createLink(dir.resolve("a-c/h.txt"), dir.resolve("a/deep/x.txt"));
+        Files.createSymbolicLink(dir.resolve("b"), dir.resolve("a/deep"));
+        Files.write(dir.resolve("z.txt"), "require 'a-c/h.txt'\nrequire 'b/x.txt'\n".getBytes());
+        for (int workers = 1; workers <= 3; workers++) {
+            Map<String, Set<String>> expected = DependencyReader.getDependencyMap(dir.toString(), false);
+            DirectedGraph graph = ShardedScan.getDependencyGraph(dir.toString(), false, workers);
+            assertEquals(expected.keySet(), graph.getNodeIds());
+            for (String from: expected.keySet()) {
+                for (String to: expected.keySet()) {
+                    assertEquals(expected.get(from).contains(to), graph.hasArc(from, to));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.natalya_me;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceFilesTest {
+
+    static Path writeGzip(Path file, String text) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    @Test
+    void testPlainFile(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("plain.txt"), "plain text\n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(SourceFiles.isCompressed(file));
+        assertEquals(11, SourceFiles.size(file));
+        assertEquals("plain text\n", new String(SourceFiles.readAllBytes(file), StandardCharsets.UTF_8));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(11, SourceFiles.copy(file, out));
+        assertEquals("plain text\n", out.toString("UTF-8"));
+    }
+
+    @Test
+    void testCompressedFileDetectedByMagic(@TempDir Path dir) throws IOException {
+        // No ".gz" extension, the magic bytes are enough
+        Path file = writeGzip(dir.resolve("archived.txt"), "require 'a.txt'\ntext\n");
+        assertTrue(SourceFiles.isCompressed(file));
+        assertEquals(21, SourceFiles.size(file));
+        assertEquals("require 'a.txt'\ntext\n", new String(SourceFiles.readAllBytes(file), StandardCharsets.UTF_8));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(21, SourceFiles.copy(file, out));
+        assertEquals("require 'a.txt'\ntext\n", out.toString("UTF-8"));
+    }
+
+    @Test
+    void testEmptyCompressedFile(@TempDir Path dir) throws IOException {
+        Path file = writeGzip(dir.resolve("archived.txt.gz"), "");
+        assertTrue(SourceFiles.isCompressed(file));
+        assertEquals(0, SourceFiles.size(file));
+        try (InputStream in = SourceFiles.openInput(file)) {
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void testCompressedNameIsNotEnough(@TempDir Path dir) throws IOException {
+        // A file named as compressed, but not in gzip format, is read as it is
+        Path file = Files.write(dir.resolve("plain.gz"), "text".getBytes(StandardCharsets.UTF_8));
+        assertFalse(SourceFiles.isCompressed(file));
+        assertEquals(4, SourceFiles.size(file));
+        assertEquals("text", new String(SourceFiles.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSizeOfSeveralMembers(@TempDir Path dir) throws IOException {
+        // The trailer of the last member holds the size of that member only
+        Path file = dir.resolve("members.txt.gz");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (String text: new String[]{"first member\n", "second\n"}) {
+                ByteArrayOutputStream member = new ByteArrayOutputStream();
+                try (OutputStream gzip = new GZIPOutputStream(member)) {
+                    gzip.write(text.getBytes(StandardCharsets.UTF_8));
+                }
+                member.writeTo(out);
+            }
+        }
+        assertEquals(20, SourceFiles.size(file));
+        assertEquals("first member\nsecond\n", new String(SourceFiles.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testCorruptCompressedFile(@TempDir Path dir) throws IOException {
+        byte[] compressed = Files.readAllBytes(writeGzip(dir.resolve("full.txt.gz"), "some text to be truncated\n"));
+        Path truncated = Files.write(dir.resolve("truncated.txt.gz"), Arrays.copyOf(compressed, compressed.length / 2));
+        ZipException ex = assertThrows(ZipException.class, () -> SourceFiles.copy(truncated, new ByteArrayOutputStream()));
+        assertTrue(ex.getMessage().contains(truncated.toString()));
+        // The magic bytes followed by an unknown compression method
+        Path header = Files.write(dir.resolve("header.txt"), new byte[]{0x1f, (byte) 0x8b, 0, 0, 0, 0, 0, 0, 0, 0});
+        assertThrows(ZipException.class, () -> SourceFiles.readAllBytes(header));
+    }
+}
@@ -0,0 +1,75 @@
+package org.natalya_me.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestConcurrentGraphBuilder {
+
+    @Test
+    void testAddNodeWhenNull() {
+        assertThrowsExactly(NullPointerException.class, () -> new ConcurrentGraphBuilder().addNode(null));
+    }
+
+    @Test
+    void testAddArcCreatesNodes() {
+        ConcurrentGraphBuilder builder = new ConcurrentGraphBuilder();
+        builder.addNode("1");
+        builder.addArc("2", "3");
+        builder.addArc("2", "3");
+        DirectedGraph graph = builder.build();
+        assertEquals(3, graph.size());
+        assertTrue(graph.hasArc("2", "3"));
+        assertFalse(graph.hasArc("3", "2"));
+    }
+
+    @Test
+    void testBuildTwice() {
+        ConcurrentGraphBuilder builder = new ConcurrentGraphBuilder();
+        builder.build();
+        assertThrowsExactly(IllegalStateException.class, builder::build);
+        assertThrowsExactly(IllegalStateException.class, () -> builder.addNode("1"));
+    }
+
+    @Test
+    void testConcurrentAdding() throws ExecutionException, InterruptedException {
+        ConcurrentGraphBuilder builder = new ConcurrentGraphBuilder();
+        int threads = 8;
+        int nodes = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int shift = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < nodes; i++) {
+                        builder.addNode(String.valueOf(i));
+                        builder.addArc(String.valueOf(i), String.valueOf((i + shift + 1) % nodes));
+                    }
+                }));
+            }
+            for (Future<?> future: futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        DirectedGraph graph = builder.build();
+        assertEquals(nodes, graph.size());
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < nodes; i++) {
+                assertTrue(graph.hasArc(String.valueOf(i), String.valueOf((i + t + 1) % nodes)));
+            }
+        }
+    }
+}
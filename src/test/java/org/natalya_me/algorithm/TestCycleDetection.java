@@ -6,7 +6,11 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
@@ -42,6 +46,29 @@ public class TestCycleDetection {
         assertEquals(Collections.emptyList(), CycleDetection.findCycle(g));
     }
 
+    @Test
+    void testFindCycleWhenNodeReachedByTwoPaths() {
+        // The search starts with the node of the greatest id and walks against arcs,
+        // so node 1 is reached from 4 both through 2 and through 3
+        DirectedGraph diamond = new DirectedGraph() {
+            @Override
+            protected Set<Node> getNodes(Predicate<Node> filter) {
+                Set<Node> nodes = new TreeSet<>(Comparator.comparing(Node::getId).reversed());
+                nodes.addAll(super.getNodes(filter));
+                return nodes;
+            }
+        };
+        for (String id: Arrays.asList("1", "2", "3", "4", "5")) {
+            diamond.addNode(id);
+        }
+        diamond.addArc("1", "2");
+        diamond.addArc("1", "3");
+        diamond.addArc("2", "4");
+        diamond.addArc("3", "4");
+        diamond.addArc("4", "5");
+        assertEquals(Collections.emptyList(), CycleDetection.findCycle(diamond));
+    }
+
     @Test
     void testFindCycleWhenTwoComponentsNoCycle() {
         g.addNode("5");
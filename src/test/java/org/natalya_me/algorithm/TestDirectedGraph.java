@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -169,6 +170,40 @@ public class TestDirectedGraph {
         assertFalse(g.findNode("2").hasReferenceFrom(node));
     }
 
+    @Test
+    void testRemoveNodeWithSeveralArcs() {
+        for (String id: Arrays.asList("1", "2", "3", "4", "5")) {
+            g.addNode(id);
+        }
+        g.addArc("1", "3");
+        g.addArc("2", "3");
+        g.addArc("3", "4");
+        g.addArc("3", "5");
+        assertTrue(g.removeNode("3"));
+        assertEquals(4, g.size());
+        assertTrue(g.findNode("1").referenceToIsEmpty());
+        assertTrue(g.findNode("5").referenceFromIsEmpty());
+    }
+
+    @Test
+    void testMergeNode() {
+        for (String id: Arrays.asList("1", "2", "3", "4")) {
+            g.addNode(id);
+        }
+        g.addArc("1", "2");
+        g.addArc("2", "3");
+        g.addArc("3", "4");
+        g.addArc("1", "3");
+        assertTrue(g.mergeNode("3", "2"));
+        assertFalse(g.hasNode("3"));
+        assertTrue(g.hasArc("1", "2"));
+        assertTrue(g.hasArc("2", "4"));
+        assertFalse(g.hasArc("2", "2"));
+        assertFalse(g.mergeNode("2", "2"));
+        assertFalse(g.mergeNode("5", "2"));
+        assertEquals(new HashSet<>(Arrays.asList("1", "2", "4")), g.getNodeIds());
+    }
+
     @Test
     void testDeepCopy() {
         List<String> ids = Arrays.asList("1", "2", "3");
@@ -191,6 +226,25 @@ public class TestDirectedGraph {
         assertFalse(gCopy.hasArc("3", "4"));
     }
 
+    @Test
+    void testAddAll() {
+        g.addNode("1");
+        g.addNode("2");
+        g.addArc("1", "2");
+        DirectedGraph other = new DirectedGraph();
+        other.addNode("2");
+        other.addNode("3");
+        other.addArc("2", "3");
+        other.addArc("3", "2");
+        g.addAll(other);
+        assertEquals(3, g.size());
+        assertTrue(g.hasArc("1", "2"));
+        assertTrue(g.hasArc("2", "3"));
+        assertTrue(g.hasArc("3", "2"));
+        g.removeArc("2", "3");
+        assertTrue(other.hasArc("2", "3"));
+    }
+
     @Test
     void testCreateFromAdjacencyList() {
         List<String> ids = Arrays.asList("1", "2", "3");
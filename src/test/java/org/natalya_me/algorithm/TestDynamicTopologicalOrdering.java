@@ -0,0 +1,136 @@
+package org.natalya_me.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.natalya_me.algorithm.TestCycleDetection.cyclesAreEqual;
+
+public class TestDynamicTopologicalOrdering {
+
+    private DirectedGraph g;
+    private final Comparator<DirectedGraph.Node> comparator = Comparator.comparing(DirectedGraph.Node::getId);
+    private final List<String> ids = Arrays.asList("1", "2", "3", "4", "5", "6");
+
+    @BeforeEach
+    void createGraph() {
+        g = new DirectedGraph();
+        for (String id: ids) {
+            g.addNode(id);
+        }
+    }
+
+    @Test
+    void testCreateWhenGraphNull() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new DynamicTopologicalOrdering(null, comparator));
+    }
+
+    @Test
+    void testCreateWhenCycle() {
+        g.addArc("1", "2");
+        g.addArc("2", "1");
+        assertThrowsExactly(IllegalArgumentException.class, () -> new DynamicTopologicalOrdering(g, comparator));
+    }
+
+    @Test
+    void testInitialOrderUsesComparator() {
+        g.addArc("6", "1");
+        g.addArc("3", "5");
+        DynamicTopologicalOrdering ordering = new DynamicTopologicalOrdering(g, comparator);
+        assertEquals(Arrays.asList("2", "3", "4", "5", "6", "1"), ordering.getOrder());
+    }
+
+    @Test
+    void testAddArcWhenNodeNotPresent() {
+        DynamicTopologicalOrdering ordering = new DynamicTopologicalOrdering(g, comparator);
+        assertThrowsExactly(IllegalArgumentException.class, () -> ordering.addArc("1", "7"));
+    }
+
+    @Test
+    void testAddArcReordersAffectedNodes() {
+        g.addArc("1", "2");
+        g.addArc("4", "5");
+        DynamicTopologicalOrdering ordering = new DynamicTopologicalOrdering(g, comparator);
+        assertEquals(Collections.emptyList(), ordering.addArc("5", "1"));
+        assertTrue(ordering.hasArc("5", "1"));
+        assertValidOrder(ordering);
+        assertFalse(g.hasArc("5", "1"));
+    }
+
+    @Test
+    void testAddArcWhenCycle() {
+        g.addArc("1", "2");
+        g.addArc("2", "3");
+        g.addArc("3", "4");
+        DynamicTopologicalOrdering ordering = new DynamicTopologicalOrdering(g, comparator);
+        List<String> cycle = ordering.addArc("4", "2");
+        assertTrue(cyclesAreEqual(Arrays.asList("2", "3", "4"), cycle));
+        assertFalse(ordering.hasArc("4", "2"));
+        assertEquals(Collections.singletonList("5"), ordering.addArc("5", "5"));
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6"), ordering.getOrder());
+    }
+
+    @Test
+    void testRemoveArcAllowsReversedArc() {
+        g.addArc("1", "2");
+        DynamicTopologicalOrdering ordering = new DynamicTopologicalOrdering(g, comparator);
+        assertTrue(ordering.removeArc("1", "2"));
+        assertEquals(Collections.emptyList(), ordering.addArc("2", "1"));
+        assertValidOrder(ordering);
+    }
+
+    @Test
+    void testAddAndRemoveNode() {
+        DynamicTopologicalOrdering ordering = new DynamicTopologicalOrdering(g, comparator);
+        assertTrue(ordering.addNode("7"));
+        assertFalse(ordering.addNode("7"));
+        assertEquals(Collections.emptyList(), ordering.addArc("7", "1"));
+        assertTrue(ordering.removeNode("3"));
+        assertFalse(ordering.removeNode("3"));
+        assertEquals(6, ordering.size());
+        assertFalse(ordering.getOrder().contains("3"));
+        assertValidOrder(ordering);
+    }
+
+    @RepeatedTest(15)
+    void testRandomModificationsKeepOrderValid() {
+        Random random = new Random();
+        DirectedGraph graph = new DirectedGraph();
+        for (int i = 0; i < 40; i++) {
+            graph.addNode(String.valueOf(i));
+        }
+        DynamicTopologicalOrdering ordering = new DynamicTopologicalOrdering(graph, comparator);
+        for (int i = 0; i < 300; i++) {
+            String from = String.valueOf(random.nextInt(40));
+            String to = String.valueOf(random.nextInt(40));
+            if (random.nextInt(4) == 0) {
+                ordering.removeArc(from, to);
+            } else if (ordering.addArc(from, to).isEmpty()) {
+                assertTrue(ordering.hasArc(from, to));
+            } else {
+                assertFalse(ordering.hasArc(from, to));
+            }
+            assertValidOrder(ordering);
+        }
+    }
+
+    private static void assertValidOrder(DynamicTopologicalOrdering ordering) {
+        List<String> order = ordering.getOrder();
+        assertEquals(ordering.size(), order.size());
+        for (int i = 0; i < order.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                assertFalse(ordering.hasArc(order.get(i), order.get(j)));
+            }
+        }
+    }
+}
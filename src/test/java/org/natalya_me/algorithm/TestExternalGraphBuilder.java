@@ -0,0 +1,147 @@
+package org.natalya_me.algorithm;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.natalya_me.algorithm.TestCycleDetection.cyclesAreEqual;
+
+public class TestExternalGraphBuilder {
+
+    @TempDir
+    Path dir;
+
+    // Sorts by the last character first, so that the order differs from the natural order of ids
+    private final TopologicalOrdering ordering = new TopologicalOrdering(Comparator.<DirectedGraph.Node, Character>comparing(n -> n.getId().charAt(n.getId().length() - 1))
+                                                                                   .thenComparing(DirectedGraph.Node::getId));
+
+    @Test
+    void testCreateWhenDirectoryIsNull() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new ExternalGraphBuilder(null, 10));
+    }
+
+    @Test
+    void testBuildTwice() throws IOException {
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dir, 10)) {
+            builder.addArc("1", "2");
+            builder.build(dir.resolve("graph.bin")).close();
+            assertThrowsExactly(IllegalStateException.class, () -> builder.build(dir.resolve("graph.bin")));
+            assertThrowsExactly(IllegalStateException.class, () -> builder.addNode("3"));
+        }
+    }
+
+    @Test
+    void testBuildWhenEmpty() throws IOException {
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dir, 10);
+             MappedGraph graph = builder.build(dir.resolve("graph.bin"))) {
+            assertTrue(graph.isEmpty());
+            assertEquals(0, graph.arcCount());
+        }
+    }
+
+    @RepeatedTest(10)
+    void testBuildMatchesMappedGraph() throws IOException {
+        DirectedGraph g = randomGraph(new Random(), 60, 200, true);
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dir, 7)) {
+            fill(builder, g);
+            try (MappedGraph external = builder.build(dir.resolve("external.bin"));
+                 MappedGraph expected = MappedGraph.create(dir.resolve("expected.bin"), g)) {
+                assertEquals(expected.size(), external.size());
+                assertEquals(expected.arcCount(), external.arcCount());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.getId(i), external.getId(i));
+                    assertEquals(expected.getOutDegree(i), external.getOutDegree(i));
+                    for (int k = 0; k < expected.getOutDegree(i); k++) {
+                        assertEquals(expected.getOutArc(i, k), external.getOutArc(i, k));
+                    }
+                    assertEquals(expected.getInDegree(i), external.getInDegree(i));
+                    for (int k = 0; k < expected.getInDegree(i); k++) {
+                        assertEquals(expected.getInArc(i, k), external.getInArc(i, k));
+                    }
+                }
+            }
+        }
+        // Only the two graph files are left
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testSortExternalWhenGraphIsNull() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> ordering.sortExternal(null, dir, 10));
+    }
+
+    @RepeatedTest(10)
+    void testSortExternalMatchesSort() throws IOException {
+        DirectedGraph g = randomGraph(new Random(), 80, 150, false);
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dir, 5)) {
+            fill(builder, g);
+            try (MappedGraph graph = builder.build(dir.resolve("graph.bin"))) {
+                // A tiny buffer makes the ready nodes spill to disk
+                TopologicalOrdering.TopologicalOrderingResult result = ordering.sortExternal(graph, dir, 2);
+                assertEquals(TopologicalOrdering.TopologicalOrderingResult.TYPE.ORDER, result.getType());
+                assertEquals(ordering.sort(g).getResult(), result.getResult());
+            }
+        }
+    }
+
+    @Test
+    void testSortExternalWhenCycle() throws IOException {
+        try (ExternalGraphBuilder builder = new ExternalGraphBuilder(dir, 3)) {
+            for (String id: Arrays.asList("1", "2", "3", "4", "5", "6")) {
+                builder.addNode(id);
+            }
+            builder.addArc("3", "1");
+            builder.addArc("2", "3");
+            builder.addArc("3", "4");
+            builder.addArc("4", "6");
+            builder.addArc("4", "5");
+            builder.addArc("6", "2");
+            builder.addArc("6", "2");
+            try (MappedGraph graph = builder.build(dir.resolve("graph.bin"))) {
+                TopologicalOrdering.TopologicalOrderingResult result = ordering.sortExternal(graph, dir, 2);
+                assertEquals(TopologicalOrdering.TopologicalOrderingResult.TYPE.CYCLE, result.getType());
+                assertTrue(cyclesAreEqual(Arrays.asList("2", "3", "4", "6"), result.getResult()));
+            }
+        }
+    }
+
+    /**
+     * Creates a random graph. An acyclic graph has arcs only from lower to higher numbers.
+     */
+    private static DirectedGraph randomGraph(Random random, int size, int arcs, boolean allowCycles) {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < size; i++) {
+            g.addNode("node" + i);
+        }
+        for (int k = 0; k < arcs; k++) {
+            int from = random.nextInt(size - 1);
+            int to = allowCycles ? random.nextInt(size) : from + 1 + random.nextInt(size - from - 1);
+            g.addArc("node" + from, "node" + to);
+        }
+        return g;
+    }
+
+    private static void fill(ExternalGraphBuilder builder, DirectedGraph g) throws IOException {
+        for (DirectedGraph.Node n: g.getNodes(null)) {
+            builder.addNode(n.getId());
+            for (DirectedGraph.Node to: n.getReferenceToIterable()) {
+                builder.addArc(n.getId(), to.getId());
+                // Duplicates are removed by the builder
+                builder.addArc(n.getId(), to.getId());
+            }
+        }
+    }
+}
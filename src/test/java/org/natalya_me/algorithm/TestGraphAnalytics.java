@@ -0,0 +1,73 @@
+package org.natalya_me.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestGraphAnalytics {
+
+    private DirectedGraph g;
+
+    @BeforeEach
+    void createGraph() {
+        g = new DirectedGraph();
+        for (String id: Arrays.asList("1", "2", "3", "4", "5", "6")) {
+            g.addNode(id);
+        }
+    }
+
+    @Test
+    void testAnalyzeWhenGraphNull() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> GraphAnalytics.analyze(null, 1));
+    }
+
+    @Test
+    void testAnalyzeWhenEmptyGraph() {
+        GraphAnalytics analytics = GraphAnalytics.analyze(new DirectedGraph(), 3);
+        assertEquals(0, analytics.getNodeCount());
+        assertEquals(0, analytics.getComponentCount());
+        assertEquals(Collections.emptyList(), analytics.getLongestPath());
+        assertEquals(Collections.emptyList(), analytics.getTopInDegree());
+    }
+
+    @Test
+    void testAnalyzeWhenNoCycles() {
+        g.addArc("3", "1");
+        g.addArc("3", "2");
+        g.addArc("3", "4");
+        g.addArc("4", "1");
+        g.addArc("2", "1");
+        g.addArc("1", "5");
+        GraphAnalytics analytics = GraphAnalytics.analyze(g, 2);
+        assertTrue(analytics.isAcyclic());
+        assertEquals(6, analytics.getNodeCount());
+        assertEquals(6, analytics.getArcCount());
+        assertEquals(2, analytics.getComponentCount());
+        assertEquals(4, analytics.getLongestPath().size());
+        assertEquals("3", analytics.getLongestPath().get(0));
+        assertEquals(Arrays.asList("1", "5"), analytics.getLongestPath().subList(2, 4));
+        assertEquals(Arrays.asList(2, 2, 1, 1), analytics.getLevelWidths());
+        assertEquals(Arrays.asList(new AbstractMap.SimpleImmutableEntry<>("1", 3), new AbstractMap.SimpleImmutableEntry<>("2", 1)),
+                analytics.getTopInDegree());
+        assertEquals(Collections.singletonList(new AbstractMap.SimpleImmutableEntry<>("3", 3)), analytics.getTopOutDegree().subList(0, 1));
+    }
+
+    @Test
+    void testAnalyzeWhenCycle() {
+        g.addArc("1", "2");
+        g.addArc("2", "1");
+        GraphAnalytics analytics = GraphAnalytics.analyze(g, 1);
+        assertFalse(analytics.isAcyclic());
+        assertEquals(Collections.emptyList(), analytics.getLongestPath());
+        assertEquals(Collections.emptyList(), analytics.getLevelWidths());
+        assertEquals(5, analytics.getComponentCount());
+    }
+}
@@ -0,0 +1,77 @@
+package org.natalya_me.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestGraphQueries {
+
+    private DirectedGraph g;
+
+    @BeforeEach
+    void createGraph() {
+        g = new DirectedGraph();
+        for (String id: Arrays.asList("1", "2", "3", "4", "5", "6")) {
+            g.addNode(id);
+        }
+        g.addArc("1", "2");
+        g.addArc("2", "3");
+        g.addArc("1", "4");
+        g.addArc("4", "3");
+        g.addArc("3", "5");
+    }
+
+    @Test
+    void testFindReachableWhenGraphNull() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> GraphQueries.findReachable(null, "1", true));
+    }
+
+    @Test
+    void testFindReachableWhenNodeNotPresent() {
+        assertEquals(Collections.emptyList(), GraphQueries.findReachable(g, "7", true));
+    }
+
+    @Test
+    void testFindReachable() {
+        assertEquals(new HashSet<>(Arrays.asList("2", "3", "4", "5")), new HashSet<>(GraphQueries.findReachable(g, "1", true)));
+        assertEquals(new HashSet<>(Arrays.asList("1", "2", "4")), new HashSet<>(GraphQueries.findReachable(g, "3", false)));
+        assertEquals(Collections.emptyList(), GraphQueries.findReachable(g, "6", true));
+    }
+
+    @Test
+    void testFindPath() {
+        assertEquals(Arrays.asList("2", "3", "5"), GraphQueries.findPath(g, "2", "5"));
+        assertEquals(Collections.emptyList(), GraphQueries.findPath(g, "5", "1"));
+        assertEquals(Collections.singletonList("6"), GraphQueries.findPath(g, "6", "6"));
+        assertEquals(Collections.emptyList(), GraphQueries.findPath(g, "1", "7"));
+    }
+
+    @Test
+    void testReachabilityIndexWhenCycle() {
+        g.addArc("5", "1");
+        assertThrowsExactly(IllegalArgumentException.class, () -> new ReachabilityIndex(g));
+    }
+
+    @Test
+    void testReachabilityIndexMatchesQueries() {
+        ReachabilityIndex index = new ReachabilityIndex(g);
+        for (String id: Arrays.asList("1", "2", "3", "4", "5", "6")) {
+            for (boolean forward: new boolean[] {true, false}) {
+                assertEquals(new HashSet<>(GraphQueries.findReachable(g, id, forward)), new HashSet<>(index.findReachable(id, forward)));
+            }
+            for (String other: Arrays.asList("1", "2", "3", "4", "5", "6")) {
+                assertEquals(!id.equals(other) && !GraphQueries.findPath(g, id, other).isEmpty(), index.reaches(id, other));
+            }
+        }
+        assertFalse(index.reaches("1", "7"));
+        assertTrue(index.findReachable("7", true).isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package org.natalya_me.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+public class TestGraphSnapshot {
+
+    @Test
+    void testWriteWhenGraphNull() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> GraphSnapshot.write(null, new DataOutputStream(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    void testWriteAndRead() throws IOException {
+        List<String> ids = Arrays.asList("/root/a/file1.txt", "/root/a/file2.txt", "/root/b/file3.txt", "/root/файл4.txt");
+        DirectedGraph g = new DirectedGraph();
+        for (String id: ids) {
+            g.addNode(id);
+        }
+        g.addArc(ids.get(0), ids.get(1));
+        g.addArc(ids.get(0), ids.get(3));
+        g.addArc(ids.get(2), ids.get(0));
+        g.addArc(ids.get(3), ids.get(3));
+
+        GraphSnapshot snapshot = GraphSnapshot.read(new DataInputStream(new ByteArrayInputStream(write(g))));
+        assertEquals(ids, snapshot.getIds());
+        DirectedGraph read = snapshot.getGraph();
+        assertEquals(g.size(), read.size());
+        for (String id: ids) {
+            for (String otherId: ids) {
+                assertEquals(g.hasArc(id, otherId), read.hasArc(id, otherId));
+            }
+        }
+    }
+
+    @Test
+    void testReadWhenEmptyGraph() throws IOException {
+        GraphSnapshot snapshot = GraphSnapshot.read(new DataInputStream(new ByteArrayInputStream(write(new DirectedGraph()))));
+        assertEquals(0, snapshot.getGraph().size());
+    }
+
+    @Test
+    void testReadWhenWrongFormat() {
+        byte[] data = "not a snapshot".getBytes();
+        assertThrowsExactly(IOException.class, () -> GraphSnapshot.read(new DataInputStream(new ByteArrayInputStream(data))));
+    }
+
+    private static byte[] write(DirectedGraph graph) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphSnapshot.write(graph, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
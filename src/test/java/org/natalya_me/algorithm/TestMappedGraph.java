@@ -0,0 +1,133 @@
+package org.natalya_me.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.natalya_me.algorithm.TestCycleDetection.cyclesAreEqual;
+
+public class TestMappedGraph {
+
+    @TempDir
+    Path dir;
+
+    private DirectedGraph g;
+    private final TopologicalOrdering ordering = new TopologicalOrdering(Comparator.comparing(DirectedGraph.Node::getId));
+    private final List<String> ids = Arrays.asList("1", "2", "3", "4", "5", "6");
+
+    @BeforeEach
+    void createGraph() {
+        g = new DirectedGraph();
+        for (String id: ids) {
+            g.addNode(id);
+        }
+    }
+
+    @Test
+    void testCreateFromAdjacencyList() throws IOException {
+        Map<String, List<String>> al = new HashMap<>();
+        al.put("1", Collections.singletonList("2"));
+        al.put("2", Collections.emptyList());
+        al.put("3", Arrays.asList("1", "2"));
+        try (MappedGraph graph = MappedGraph.create(dir.resolve("graph.bin"), al)) {
+            assertEquals(3, graph.size());
+            assertEquals(3, graph.arcCount());
+            for (String id: Arrays.asList("1", "2", "3")) {
+                assertTrue(graph.hasNode(id));
+                for (String toId: Arrays.asList("1", "2", "3")) {
+                    assertEquals(al.get(id).contains(toId), graph.hasArc(id, toId));
+                }
+            }
+            assertFalse(graph.hasNode("4"));
+            assertFalse(graph.hasNode(null));
+            assertEquals(2, graph.getInDegree(graph.indexOf("2")));
+            assertEquals(0, graph.getInDegree(graph.indexOf("3")));
+        }
+    }
+
+    @Test
+    void testOpenExistingFile() throws IOException {
+        g.addArc("1", "2");
+        g.addArc("3", "2");
+        Path file = dir.resolve("graph.bin");
+        MappedGraph.create(file, g).close();
+        try (MappedGraph graph = MappedGraph.open(file)) {
+            assertEquals(ids.size(), graph.size());
+            assertTrue(graph.hasArc("1", "2"));
+            assertTrue(graph.hasArc("3", "2"));
+            assertFalse(graph.hasArc("2", "1"));
+            assertEquals("5", graph.getId(graph.indexOf("5")));
+        }
+    }
+
+    @Test
+    void testOpenWhenNotGraphFile() throws IOException {
+        Path file = Files.write(dir.resolve("text.txt"), "not a graph".getBytes());
+        assertThrowsExactly(IOException.class, () -> MappedGraph.open(file));
+    }
+
+    @Test
+    void testSortWhenGraphIsNull() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> ordering.sortMapped(null));
+    }
+
+    @Test
+    void testSortWhenNoCycles() throws IOException {
+        g.addArc("6", "1");
+        g.addArc("1", "2");
+        g.addArc("2", "4");
+        g.addArc("3", "5");
+        try (MappedGraph graph = MappedGraph.create(dir.resolve("graph.bin"), g)) {
+            TopologicalOrdering.TopologicalOrderingResult result = ordering.sortMapped(graph);
+            assertEquals(TopologicalOrdering.TopologicalOrderingResult.TYPE.ORDER, result.getType());
+            assertEquals(ordering.sort(g).getResult(), result.getResult());
+            assertEquals(Collections.emptyList(), CycleDetection.findCycleMapped(graph));
+        }
+    }
+
+    @Test
+    void testSortWhenCycle() throws IOException {
+        g.addArc("3", "1");
+        g.addArc("2", "3");
+        g.addArc("3", "4");
+        g.addArc("4", "6");
+        g.addArc("4", "5");
+        g.addArc("6", "2");
+        try (MappedGraph graph = MappedGraph.create(dir.resolve("graph.bin"), g)) {
+            TopologicalOrdering.TopologicalOrderingResult result = ordering.sortMapped(graph);
+            assertEquals(TopologicalOrdering.TopologicalOrderingResult.TYPE.CYCLE, result.getType());
+            assertTrue(cyclesAreEqual(Arrays.asList("2", "3", "4", "6"), result.getResult()));
+        }
+    }
+
+    @Test
+    void testFindCycleWhenSelfReference() throws IOException {
+        g.addArc("1", "2");
+        g.addArc("2", "3");
+        g.addArc("2", "2");
+        try (MappedGraph graph = MappedGraph.create(dir.resolve("graph.bin"), g)) {
+            assertEquals(Collections.singletonList("2"), CycleDetection.findCycleMapped(graph));
+        }
+    }
+
+    @Test
+    void testDirectBufferLimit() {
+        // A direct buffer addresses bytes with an int, larger working arrays are rejected instead of overflowing
+        assertThrowsExactly(IllegalArgumentException.class, () -> MappedIntArray.allocateDirect(Integer.MAX_VALUE / 4 + 1));
+        assertEquals(16, MappedIntArray.allocateDirect(16).capacity());
+    }
+}
@@ -0,0 +1,54 @@
+package org.natalya_me.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestParallelLevelProcessing {
+
+    private final List<List<String>> levels = Arrays.asList(
+            Arrays.asList("1", "2", "3"),
+            Arrays.asList("4", "5"),
+            Collections.singletonList("6"));
+
+    @Test
+    void testProcessWhenParallelismNotPositive() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> ParallelLevelProcessing.process(levels, id -> {}, 0));
+    }
+
+    @Test
+    void testProcessRespectsLevels() throws ExecutionException, InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        Map<String, Integer> finished = new ConcurrentHashMap<>();
+        ParallelLevelProcessing.process(levels, id -> finished.put(id, counter.incrementAndGet()), 4);
+        assertEquals(6, finished.size());
+        for (String id: levels.get(0)) {
+            assertTrue(finished.get(id) <= 3);
+        }
+        for (String id: levels.get(1)) {
+            assertTrue(finished.get(id) > 3 && finished.get(id) <= 5);
+        }
+        assertEquals(6, finished.get("6"));
+    }
+
+    @Test
+    void testProcessStopsWhenActionFails() {
+        Map<String, Boolean> processed = new ConcurrentHashMap<>();
+        assertThrowsExactly(ExecutionException.class, () -> ParallelLevelProcessing.process(levels, id -> {
+            processed.put(id, true);
+            if (id.equals("4")) throw new IllegalStateException("failure");
+        }, 2));
+        assertFalse(processed.containsKey("6"));
+    }
+}
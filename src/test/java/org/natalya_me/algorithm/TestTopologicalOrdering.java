@@ -141,4 +141,45 @@ public class TestTopologicalOrdering {
                 || cyclesAreEqual(Arrays.asList("1", "5", "3"), result.getResult())
                 || cyclesAreEqual(Collections.singletonList("6"), result.getResult()));
     }
+
+    @Test
+    void testSortByLevelsWhenGraphIsNull() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> ordering.sortByLevels(null));
+    }
+
+    @Test
+    void testSortByLevelsWhenGraphEmpty() {
+        TopologicalOrdering.LevelOrderingResult result = ordering.sortByLevels(new DirectedGraph());
+        assertEquals(TopologicalOrdering.TopologicalOrderingResult.TYPE.ORDER, result.getType());
+        assertEquals(Collections.emptyList(), result.getLevels());
+    }
+
+    @Test
+    void testSortByLevelsWhenNoCycles() {
+        g.addArc("3", "1");
+        g.addArc("3", "2");
+        g.addArc("3", "4");
+        g.addArc("4", "6");
+        g.addArc("4", "5");
+        g.addArc("6", "1");
+        TopologicalOrdering.LevelOrderingResult result = ordering.sortByLevels(g);
+        assertEquals(TopologicalOrdering.TopologicalOrderingResult.TYPE.ORDER, result.getType());
+        assertEquals(Arrays.asList(
+                Collections.singletonList("3"),
+                Arrays.asList("2", "4"),
+                Arrays.asList("5", "6"),
+                Collections.singletonList("1")), result.getLevels());
+        assertEquals(Arrays.asList("3", "2", "4", "5", "6", "1"), result.getResult());
+    }
+
+    @Test
+    void testSortByLevelsWhenCycle() {
+        g.addArc("6", "1");
+        g.addArc("1", "2");
+        g.addArc("2", "6");
+        TopologicalOrdering.LevelOrderingResult result = ordering.sortByLevels(g);
+        assertEquals(TopologicalOrdering.TopologicalOrderingResult.TYPE.CYCLE, result.getType());
+        assertEquals(Collections.emptyList(), result.getLevels());
+        assertTrue(cyclesAreEqual(Arrays.asList("6", "1", "2"), result.getResult()));
+    }
 }
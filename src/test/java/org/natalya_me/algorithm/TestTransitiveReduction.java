@@ -0,0 +1,93 @@
+package org.natalya_me.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestTransitiveReduction {
+
+    private DirectedGraph g;
+
+    @BeforeEach
+    void createGraph() {
+        g = new DirectedGraph();
+        for (String id: Arrays.asList("1", "2", "3", "4", "5")) {
+            g.addNode(id);
+        }
+    }
+
+    @Test
+    void testFindRedundantArcsWhenGraphNull() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> TransitiveReduction.findRedundantArcs(null));
+    }
+
+    @Test
+    void testFindRedundantArcsWhenCycle() {
+        g.addArc("1", "2");
+        g.addArc("2", "1");
+        assertThrowsExactly(IllegalArgumentException.class, () -> TransitiveReduction.findRedundantArcs(g));
+    }
+
+    @Test
+    void testFindRedundantArcsWhenNoRedundantArcs() {
+        g.addArc("1", "2");
+        g.addArc("1", "3");
+        g.addArc("2", "4");
+        g.addArc("3", "4");
+        assertEquals(Collections.emptyList(), TransitiveReduction.findRedundantArcs(g));
+    }
+
+    @Test
+    void testReduce() {
+        g.addArc("1", "2");
+        g.addArc("2", "3");
+        g.addArc("3", "4");
+        g.addArc("1", "3");
+        g.addArc("1", "4");
+        g.addArc("2", "4");
+        g.addArc("5", "4");
+        List<Map.Entry<String, String>> removed = TransitiveReduction.reduce(g);
+        assertEquals(new HashSet<>(Arrays.asList(
+                new AbstractMap.SimpleImmutableEntry<>("1", "3"),
+                new AbstractMap.SimpleImmutableEntry<>("1", "4"),
+                new AbstractMap.SimpleImmutableEntry<>("2", "4"))), new HashSet<>(removed));
+        assertTrue(g.hasArc("1", "2"));
+        assertTrue(g.hasArc("5", "4"));
+        assertFalse(g.hasArc("1", "4"));
+    }
+
+    @RepeatedTest(15)
+    void testReduceKeepsReachability() {
+        Random random = new Random();
+        DirectedGraph graph = new DirectedGraph();
+        int size = 30;
+        for (int i = 0; i < size; i++) {
+            graph.addNode(String.valueOf(i));
+        }
+        // Arcs only from lower to higher numbers keep the graph acyclic
+        for (int k = 0; k < 120; k++) {
+            int from = random.nextInt(size - 1);
+            graph.addArc(String.valueOf(from), String.valueOf(from + 1 + random.nextInt(size - from - 1)));
+        }
+        DirectedGraph reduced = graph.deepCopy();
+        TransitiveReduction.reduce(reduced);
+        assertEquals(Collections.emptyList(), TransitiveReduction.findRedundantArcs(reduced));
+        for (int i = 0; i < size; i++) {
+            assertEquals(new HashSet<>(GraphQueries.findReachable(graph, String.valueOf(i), true)),
+                    new HashSet<>(GraphQueries.findReachable(reduced, String.valueOf(i), true)));
+        }
+    }
+}